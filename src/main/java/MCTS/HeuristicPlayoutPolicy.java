@@ -0,0 +1,113 @@
+package MCTS;
+
+import java.util.Random;
+
+import game.mills.Position;
+import minimax.EvaluationFunction;
+
+/**
+ * A playout policy guided by the cheap bitmask features of {@link EvaluationFunction}.
+ * Moves are picked either epsilon-greedily (the best scored move, or a random one with probability epsilon)
+ * or by sampling from a softmax over the move scores. Optionally the playout stops after a fixed number of
+ * plies and returns the static evaluation mapped to a win probability.
+ * <p>
+ * Instances keep a scratch buffer and must not be shared between concurrently running searches.
+ */
+public class HeuristicPlayoutPolicy implements PlayoutPolicy {
+    /**
+     * Score difference that corresponds to a factor e in win odds at the cutoff.
+     */
+    private static final double EVALUATION_SCALE = 100.0;
+
+    private final boolean softmax;
+    private final double epsilon;
+    private final double temperature;
+    private final int cutoff;
+    private final double[] weights = new double[Position.MAX_MOVES];
+
+    private HeuristicPlayoutPolicy(boolean softmax, double epsilon, double temperature, int cutoff) {
+        this.softmax = softmax;
+        this.epsilon = epsilon;
+        this.temperature = temperature;
+        this.cutoff = cutoff;
+    }
+
+    /**
+     * Creates an epsilon-greedy policy.
+     *
+     * @param epsilon The probability of playing a random move instead of the best scored one.
+     * @param cutoff  The number of plies after which the playout is evaluated statically, 0 to disable.
+     * @return The policy.
+     */
+    public static HeuristicPlayoutPolicy epsilonGreedy(double epsilon, int cutoff) {
+        return new HeuristicPlayoutPolicy(false, epsilon, 0, cutoff);
+    }
+
+    /**
+     * Creates a softmax policy.
+     *
+     * @param temperature The softmax temperature in score units; higher values play more randomly.
+     * @param cutoff      The number of plies after which the playout is evaluated statically, 0 to disable.
+     * @return The policy.
+     */
+    public static HeuristicPlayoutPolicy softmax(double temperature, int cutoff) {
+        return new HeuristicPlayoutPolicy(true, 0, temperature, cutoff);
+    }
+
+    @Override
+    public int select(Position position, int[] moves, int count, Random random) {
+        if (softmax) {
+            return selectSoftmax(position, moves, count, random);
+        }
+        if (random.nextDouble() < epsilon) {
+            return moves[random.nextInt(count)];
+        }
+        int best = moves[0];
+        int bestScore = Integer.MIN_VALUE;
+        int ties = 0;
+        for (int i = 0; i < count; i++) {
+            int score = EvaluationFunction.scoreMove(position, moves[i]);
+            if (score > bestScore) {
+                bestScore = score;
+                best = moves[i];
+                ties = 1;
+            } else if (score == bestScore && random.nextInt(++ties) == 0) {
+                // Reservoir sampling keeps the choice among equally scored moves uniform.
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+
+    private int selectSoftmax(Position position, int[] moves, int count, Random random) {
+        int maxScore = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int score = EvaluationFunction.scoreMove(position, moves[i]);
+            weights[i] = score;
+            maxScore = Math.max(maxScore, score);
+        }
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            weights[i] = Math.exp((weights[i] - maxScore) / temperature);
+            total += weights[i];
+        }
+        double r = random.nextDouble() * total;
+        for (int i = 0; i < count; i++) {
+            r -= weights[i];
+            if (r <= 0) {
+                return moves[i];
+            }
+        }
+        return moves[count - 1];
+    }
+
+    @Override
+    public int cutoff() {
+        return cutoff;
+    }
+
+    @Override
+    public double evaluate(Position position, int side) {
+        return 1.0 / (1.0 + Math.exp(-EvaluationFunction.evaluate(position, side) / EVALUATION_SCALE));
+    }
+}
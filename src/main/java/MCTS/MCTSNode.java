@@ -1,172 +1,279 @@
 package MCTS;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
-import game.mills.Board;
-import game.mills.InvalidMove;
-import game.mills.Node;
-import game.mills.Player;
+import game.mills.Move;
+import game.mills.Position;
+import game.mills.SearchStatistics;
 
+/**
+ * A node of the Monte Carlo search tree.
+ * Besides the usual visit/win statistics every node carries a proven state (MCTS-Solver):
+ * once a subtree's result is known for certain it is propagated towards the root and the subtree is no
+ * longer searched.
+ * <p>
+ * Wins are counted from the perspective of the player who made the move leading to this node.
+ * The proven state is stored from the perspective of the side to move in this node.
+ * <p>
+ * Each node also keeps All-Moves-As-First (RAVE) statistics for the move leading to it: every playout in
+ * which the parent's side to move played this move later on counts towards them. They are blended into the
+ * UCT value with weight {@code sqrt(k / (3n + k))}, where k is the RAVE equivalence parameter.
+ */
 class MCTSNode {
-    private Board board;
-    private Player player;
-    private Player opponent;
+    static final int UNKNOWN = 0;
+    static final int PROVEN_WIN = 1;
+    static final int PROVEN_LOSS = -1;
+
+    private static final int MAX_PLAYOUT_PLIES = 200;
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    private final Position position;
+    private final MCTSNode parent;
+    private final int move;
     private List<MCTSNode> children;
     private int visits;
-    private int wins;
-
-    public MCTSNode(Board board, Player player, Player opponent) {
-        this.board = board;
-        this.player = player;
-        this.opponent = opponent;
-        this.children = new ArrayList<>();
-        this.visits = 0;
-        this.wins = 0;
-    }
-
-    public MCTSNode select() {
-        return children.stream().max(Comparator.comparingDouble(this::uctValue)).orElse(this);
-    }
-
-    public void expand() {
-        if (player.getStonesToPlace() > 0) {
-            System.out.println("Expanding with stone placement...");
-            // Expand with placing stones
-            List<Node> possibleMoves = getAvailableMoves();
-            for (Node move : possibleMoves) {
-                Board newBoard = board.deepCopy();
-                newBoard.placePiece(player, move.getId());
-                player.decrementStonesToPlace();
-                player.incrementStonesOnBoard();
-                children.add(new MCTSNode(newBoard, player, opponent));
-                System.out.println("Placing at node: " + move.getId());
+    private double wins;
+    private int proven;
+    private int amafVisits;
+    private double amafWins;
+
+    public MCTSNode(Position position) {
+        this(position, null, Move.NONE);
+    }
+
+    private MCTSNode(Position position, MCTSNode parent, int move) {
+        this.position = position;
+        this.parent = parent;
+        this.move = move;
+        this.proven = position.isLost() ? PROVEN_LOSS : UNKNOWN;
+    }
+
+    /**
+     * Descends from this node to a leaf, following the highest UCT value and skipping solved children.
+     *
+     * @param raveEquivalence The RAVE equivalence parameter k, 0 disables RAVE.
+     * @return The leaf that should be expanded or simulated next.
+     */
+    public MCTSNode select(double raveEquivalence) {
+        MCTSNode node = this;
+        while (node.children != null && !node.isSolved()) {
+            node = node.bestUctChild(raveEquivalence);
+        }
+        return node;
+    }
+
+    /**
+     * Expands this node by creating a child for every legal move.
+     * If one of the children is an immediate loss for the opponent the node is proven to be won.
+     *
+     * @param random The random source used to pick the child to simulate from.
+     * @param moves  A scratch buffer of at least {@link Position#MAX_MOVES} entries.
+     * @return An unvisited child to simulate from, or this node if it is solved.
+     */
+    public MCTSNode expand(Random random, int[] moves) {
+        int count = position.generateMoves(moves);
+        children = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MCTSNode child = new MCTSNode(position.play(moves[i]), this, moves[i]);
+            children.add(child);
+            if (child.proven == PROVEN_LOSS) {
+                proven = PROVEN_WIN;
             }
-        } else {
-            System.out.println("Expanding with stone movement...");
-            // Handle movement
-            List<Node> possibleMoves = getAvailableMoves();
-            for (Node move : possibleMoves) {
-                Board newBoard = board.deepCopy();
-                newBoard.movePiece(player, move.getId(), move.getId());
-                children.add(new MCTSNode(newBoard, player, opponent));
+        }
+        if (isSolved() || children.isEmpty()) {
+            return this;
+        }
+        return children.get(random.nextInt(children.size()));
+    }
+
+    /**
+     * Plays moves chosen by the playout policy from this node until the game ends, the policy's cutoff is
+     * reached (the position is then evaluated statically) or the ply limit is reached.
+     *
+     * @param random The random source for the playout.
+     * @param trace  Receives the moves played in the playout.
+     * @param policy The playout policy.
+     * @param moves  A scratch buffer of at least {@link Position#MAX_MOVES} entries.
+     * @return The result for the player who made the move leading to this node (1 win, 0 loss, 0.5 draw).
+     */
+    public double simulate(Random random, PlayoutTrace trace, PlayoutPolicy policy, int[] moves) {
+        if (isSolved()) {
+            return proven == PROVEN_LOSS ? 1.0 : 0.0;
+        }
+        Position current = position;
+        int cutoff = policy.cutoff() > 0 ? policy.cutoff() : MAX_PLAYOUT_PLIES;
+        for (int ply = 0; ply < MAX_PLAYOUT_PLIES; ply++) {
+            if (ply == cutoff) {
+                return policy.evaluate(current, 1 - position.sideToMove());
             }
+            int count = current.generateMoves(moves);
+            if (count == 0 || current.isLost()) {
+                // The side to move in 'current' lost; ply parity tells us who that is relative to this node.
+                return ply % 2 == 0 ? 1.0 : 0.0;
+            }
+            int move = policy.select(current, moves, count, random);
+            trace.add(current.sideToMove(), move);
+            current = current.play(move);
         }
+        return 0.5;
     }
-    
-
-
-    public Player simulate() {
-        Board simulationBoard = board.deepCopy();
-        Player currentPlayer = player;
-        Player otherPlayer = opponent;
-    
-        while (true) {
-            // Debugging output: show the player's turn and available stones to place
-            System.out.println("Player's turn: " + currentPlayer.getName());
-            System.out.println("Stones to place: " + currentPlayer.getStonesToPlace());
-    
-            if (currentPlayer.getStonesToPlace() > 0) {
-                // Debugging: Show that the player is placing a stone
-                System.out.println("Placing stone...");
-    
-                // Collect all available moves (empty nodes) for placing stones
-                List<Node> possibleMoves = new ArrayList<>();
-                for (Node node : simulationBoard.getNodes().values()) {
-                    if (!node.isOccupied()) {
-                        possibleMoves.add(node);
-                    }
-                }
-    
-                // If there are available moves (empty nodes to place the stone)
-                if (!possibleMoves.isEmpty()) {
-                    // Choose a random move
-                    Node randomMove = possibleMoves.get((int) (Math.random() * possibleMoves.size()));
-                    System.out.println("Placing at node: " + randomMove.getId());
-    
-                    // Place the stone on the selected node
-                    simulationBoard.placePiece(currentPlayer, randomMove.getId());
-    
-                    // Update the current player's stones
-                    currentPlayer.decrementStonesToPlace();
-                    currentPlayer.incrementStonesOnBoard();
-                }
-            } else {
-                // It's the movement phase
-                System.out.println("It's the movement phase.");
-    
-                // Get all available moves (empty nodes or valid movement positions)
-                List<Node> possibleMoves = new ArrayList<>();
-                for (Node node : simulationBoard.getNodes().values()) {
-                    if (!node.isOccupied()) {
-                        possibleMoves.add(node);
+
+    /**
+     * Adds a playout result to this node and all its ancestors, updates the AMAF statistics of their
+     * children and propagates proven results.
+     *
+     * @param result The result for the player who made the move leading to this node.
+     * @param trace  The moves played in the playout, cleared afterwards.
+     */
+    public void backpropagate(double result, PlayoutTrace trace) {
+        MCTSNode node = this;
+        while (node != null) {
+            node.visits++;
+            node.wins += result;
+            result = 1.0 - result;
+            if (node.children != null) {
+                // 'result' is now from the perspective of the side to move in 'node'.
+                int side = node.position.sideToMove();
+                for (MCTSNode child : node.children) {
+                    if (trace.contains(side, child.move)) {
+                        child.amafVisits++;
+                        child.amafWins += result;
                     }
                 }
-    
-                // If there are valid available moves, proceed
-                if (!possibleMoves.isEmpty()) {
-                    Node randomMove = possibleMoves.get((int) (Math.random() * possibleMoves.size()));
-    
-                    // If stones have already been placed, we perform a move
-                    System.out.println("Moving stone to node: " + randomMove.getId());
-                    simulationBoard.movePiece(currentPlayer, randomMove.getId(), randomMove.getId());
-    
-                    // Update the stones
-                    currentPlayer.decrementStonesOnBoard();
-                    currentPlayer.incrementStonesOnBoard();
+            }
+            if (node.parent != null) {
+                trace.add(node.parent.position.sideToMove(), node.move);
+                node.parent.updateProven(node);
+            }
+            node = node.parent;
+        }
+        trace.clear();
+    }
+
+    /**
+     * Updates this node's proven state after a child's state may have changed.
+     * A child lost for the opponent proves a win; all children won for the opponent prove a loss.
+     */
+    private void updateProven(MCTSNode child) {
+        if (isSolved()) {
+            return;
+        }
+        if (child.proven == PROVEN_LOSS) {
+            proven = PROVEN_WIN;
+        } else if (child.proven == PROVEN_WIN) {
+            for (MCTSNode sibling : children) {
+                if (sibling.proven != PROVEN_WIN) {
+                    return;
                 }
             }
-    
-            // Check if the game has ended (either by no valid moves or a player running out of stones)
-            if (!simulationBoard.hasValidMoves(currentPlayer) || currentPlayer.getStonesOnBoard() <= 2) {
-                // Other player wins
-                System.out.println("Game over: " + otherPlayer.getName() + " wins!");
-                return otherPlayer;
+            proven = PROVEN_LOSS;
+        }
+    }
+
+    /**
+     * Gets the move to play from this node: a proven win if one exists, otherwise the most visited child
+     * that is not a proven loss.
+     *
+     * @return The packed move, or {@link Move#NONE} if the node has no children.
+     */
+    public int getBestMove() {
+        if (children == null || children.isEmpty()) {
+            return Move.NONE;
+        }
+        MCTSNode best = null;
+        for (MCTSNode child : children) {
+            if (child.proven == PROVEN_LOSS) {
+                return child.move;
             }
-            if (!simulationBoard.hasValidMoves(otherPlayer) || otherPlayer.getStonesOnBoard() <= 2) {
-                // Current player wins
-                System.out.println("Game over: " + currentPlayer.getName() + " wins!");
-                return currentPlayer;
+            if (best == null || better(child, best)) {
+                best = child;
             }
-    
-            // Switch players for the next turn
-            Player temp = currentPlayer;
-            currentPlayer = otherPlayer;
-            otherPlayer = temp;
         }
+        return best.move;
     }
-    
-    
 
-    public void backpropagate(Player winner) {
-        visits++;
-        if (winner == player) {
-            wins++;
+    /**
+     * Records the size and depth of the tree below this node and the value of its best move.
+     *
+     * @param statistics The statistics of the search.
+     */
+    public void measure(SearchStatistics statistics) {
+        int[] depth = new int[1];
+        statistics.setTree(size(0, depth), depth[0]);
+        if (children == null) {
+            return;
         }
-        if (!children.isEmpty()) {
-            children.forEach(child -> child.backpropagate(winner));
+        int bestMove = getBestMove();
+        for (MCTSNode child : children) {
+            if (child.move == bestMove) {
+                statistics.setScore(child.proven == PROVEN_LOSS ? 1000 : child.proven == PROVEN_WIN ? -1000
+                        : child.visits == 0 ? 0 : (int) Math.round((2 * child.wins / child.visits - 1) * 1000));
+            }
         }
     }
 
-    public Node getBestMove() {
-        return children.stream().max(Comparator.comparingInt(c -> c.wins)).map(c -> c.board.getNode(0)).orElse(null);
+    private int size(int depth, int[] maxDepth) {
+        maxDepth[0] = Math.max(maxDepth[0], depth);
+        int size = 1;
+        if (children != null) {
+            for (MCTSNode child : children) {
+                size += child.size(depth + 1, maxDepth);
+            }
+        }
+        return size;
     }
 
-    private double uctValue(MCTSNode node) {
-        if (node.visits == 0) {
-            return Double.MAX_VALUE;
+    private static boolean better(MCTSNode candidate, MCTSNode best) {
+        boolean candidateLost = candidate.proven == PROVEN_WIN;
+        boolean bestLost = best.proven == PROVEN_WIN;
+        if (candidateLost != bestLost) {
+            return bestLost;
         }
-        return (double) node.wins / node.visits + Math.sqrt(2 * Math.log(visits) / node.visits);
+        return candidate.visits > best.visits;
     }
 
-    private List<Node> getAvailableMoves() {
-        List<Node> availableMoves = new ArrayList<>();
-        for (Node node : board.getNodes().values()) {
-            if (!node.isOccupied()) {
-                availableMoves.add(node);
+    private MCTSNode bestUctChild(double raveEquivalence) {
+        MCTSNode best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (MCTSNode child : children) {
+            if (child.isSolved()) {
+                continue;
+            }
+            double value = uctValue(child, raveEquivalence);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
             }
         }
-        return availableMoves;
+        return best;
+    }
+
+    private double uctValue(MCTSNode node, double raveEquivalence) {
+        boolean rave = raveEquivalence > 0 && node.amafVisits > 0;
+        if (node.visits == 0) {
+            // Without own statistics, order unvisited children by their AMAF value if there is one.
+            return rave ? node.amafWins / node.amafVisits + EXPLORATION * Math.sqrt(Math.log(visits + 1))
+                    : Double.MAX_VALUE;
+        }
+        double value = node.wins / node.visits;
+        if (rave) {
+            double beta = Math.sqrt(raveEquivalence / (3 * node.visits + raveEquivalence));
+            value = (1 - beta) * value + beta * node.amafWins / node.amafVisits;
+        }
+        return value + EXPLORATION * Math.sqrt(Math.log(visits) / node.visits);
+    }
+
+    public boolean isSolved() {
+        return proven != UNKNOWN;
+    }
+
+    public int getProven() {
+        return proven;
+    }
+
+    public int getVisits() {
+        return visits;
     }
-}
\ No newline at end of file
+}
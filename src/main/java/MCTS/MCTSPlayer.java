@@ -1,27 +1,89 @@
 package MCTS;
 
-import game.mills.Board;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import book.OpeningBook;
+import game.mills.Agent;
 import game.mills.Game;
-import game.mills.Node;
-import game.mills.Player;
+import game.mills.Move;
+import game.mills.Position;
+import game.mills.SearchExecutor;
+import game.mills.SearchStatistics;
 import javafx.scene.paint.Color;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * MCTSPlayer implements a Monte Carlo Tree Search AI for the Mills game.
+ * The search runs on compact {@link Position} snapshots and uses MCTS-Solver to stop searching
+ * subtrees whose result is already proven. Move values are blended with All-Moves-As-First (RAVE)
+ * statistics, which converge much faster in the placing phase where a point's value hardly depends on
+ * move order. Playouts follow a {@link PlayoutPolicy}, by default an epsilon-greedy policy guided by the
+ * evaluation function's move features.
+ * If a {@link PUCTSearch} is set, the player searches with the policy/value network instead.
+ * Placement moves found in the {@link OpeningBook} are played without searching.
  */
-public class MCTSPlayer implements Player {
+@Slf4j
+public class MCTSPlayer implements Agent {
     private Game game;
     private final String name;
     private final Color color;
     private int stonesToPlace;
     private int stonesOnBoard;
-    private static final int SIMULATION_COUNT = 100;
+    private final int iterations;
+    private final double raveEquivalence;
+    private final PlayoutTrace trace = new PlayoutTrace();
+    // Move generation buffer of the expansions and playouts, so the search loop does not allocate one per step.
+    private final int[] moves = new int[Position.MAX_MOVES];
+    @Setter
+    private PlayoutPolicy playoutPolicy = HeuristicPlayoutPolicy.epsilonGreedy(PLAYOUT_EPSILON, 0);
+    @Setter
+    private PUCTSearch puctSearch;
+    @Setter
+    private OpeningBook openingBook = OpeningBook.getDefault();
+    private final Random random = new Random();
+    /**
+     * The statistics of the last move chosen, see {@link #chooseMove(Position)} and {@link #runMCTS(Position)}.
+     */
+    @Getter
+    private SearchStatistics searchStatistics = new SearchStatistics();
+    private static final int SIMULATION_COUNT = 2000;
+    private static final double RAVE_EQUIVALENCE = 500;
+    private static final double PLAYOUT_EPSILON = 0.1;
 
     public MCTSPlayer(String name, Color color) {
+        this(name, color, SIMULATION_COUNT);
+    }
+
+    /**
+     * Constructs an MCTS player with a custom number of iterations per move.
+     *
+     * @param name       The name of the player.
+     * @param color      The color of the player's pieces.
+     * @param iterations The number of search iterations per move.
+     */
+    public MCTSPlayer(String name, Color color, int iterations) {
+        this(name, color, iterations, RAVE_EQUIVALENCE);
+    }
+
+    /**
+     * Constructs an MCTS player with a custom number of iterations and RAVE equivalence parameter.
+     *
+     * @param name            The name of the player.
+     * @param color           The color of the player's pieces.
+     * @param iterations      The number of search iterations per move.
+     * @param raveEquivalence The number of visits at which UCT and AMAF statistics are weighted equally
+     *                        (roughly); 0 disables RAVE.
+     */
+    public MCTSPlayer(String name, Color color, int iterations, double raveEquivalence) {
         this.name = name;
         this.color = color;
         this.stonesToPlace = 9; // Initial number of stones
         this.stonesOnBoard = 0;
+        this.iterations = iterations;
+        this.raveEquivalence = raveEquivalence;
     }
 
     @Override
@@ -37,7 +99,12 @@ public class MCTSPlayer implements Player {
     public int getStonesOnBoard() { return stonesOnBoard; }
 
     @Override
-    public void decrementStonesToPlace() { stonesToPlace--; }
+    public void decrementStonesToPlace() {
+        if (stonesToPlace > 0) {
+            stonesToPlace--;
+            stonesOnBoard++;
+        }
+    }
 
     @Override
     public void incrementStonesOnBoard() { stonesOnBoard++; }
@@ -45,30 +112,104 @@ public class MCTSPlayer implements Player {
     @Override
     public void decrementStonesOnBoard() { stonesOnBoard--; }
 
-     public void setGame(Game game) {
+    @Override
+    public void setGame(Game game) {
         this.game = game;
     }
 
-    public void makeMove(Board board, Player opponent) {
-        Node bestMove = runMCTS(board, opponent);
-        if (bestMove != null) {
-            board.placePiece(this, bestMove.getId());
-            this.decrementStonesToPlace(); 
-            this.incrementStonesOnBoard(); 
+    @Override
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Chooses the move in the background; the search ends at the deadline even if it has iterations left.
+     */
+    @Override
+    public CompletableFuture<Integer> requestMove(Position position, long deadline) {
+        return SearchExecutor.compute(() -> chooseMove(position, deadline));
+    }
+
+    /**
+     * Chooses the move for a position: from the opening book if it has one, otherwise by searching.
+     * Only reads the position, so it may run on any thread.
+     *
+     * @param position The position.
+     * @return The best packed move, or {@link Move#NONE} if there is none.
+     */
+    public int chooseMove(Position position) {
+        return chooseMove(position, Agent.NO_DEADLINE);
+    }
+
+    /**
+     * Chooses the move for a position, searching until the iterations are used up or the deadline has passed.
+     *
+     * @param position The position.
+     * @param deadline The {@link System#nanoTime()} at which the search stops, or {@link Agent#NO_DEADLINE}.
+     * @return The best packed move, or {@link Move#NONE} if there is none.
+     */
+    public int chooseMove(Position position, long deadline) {
+        MCTSSearchEvent event = new MCTSSearchEvent();
+        event.begin();
+        SearchStatistics statistics = new SearchStatistics();
+        int move = Move.NONE;
+        if (openingBook != null) {
+            move = openingBook.probe(position);
+            statistics.countTableProbe(move != Move.NONE);
+        }
+        if (move == Move.NONE) {
+            move = search(position, statistics, deadline);
+        }
+        return finish(statistics, event, move);
+    }
+
+    /**
+     * Runs the search from the given position. The search stops early if the thread is interrupted.
+     *
+     * @param position The position to search.
+     * @return The best packed move, or {@link Move#NONE} if there is none.
+     */
+    public int runMCTS(Position position) {
+        MCTSSearchEvent event = new MCTSSearchEvent();
+        event.begin();
+        SearchStatistics statistics = new SearchStatistics();
+        return finish(statistics, event, search(position, statistics, Agent.NO_DEADLINE));
+    }
+
+    private int finish(SearchStatistics statistics, MCTSSearchEvent event, int move) {
+        statistics.stop();
+        searchStatistics = statistics;
+        if (event.shouldCommit()) {
+            event.player = name;
+            event.playouts = statistics.getPlayouts();
+            event.treeSize = statistics.getNodes();
+            event.depth = statistics.getDepthReached();
+            event.score = statistics.getScore();
+            event.move = Move.toString(move);
+            event.commit();
         }
+        return move;
     }
 
-    private Node runMCTS(Board board, Player opponent) {
-        MCTSNode root = new MCTSNode(board.deepCopy(), this, opponent);
-        System.out.println("Starting MCTS simulation...");
+    private int search(Position position, SearchStatistics statistics, long deadline) {
+        if (puctSearch != null) {
+            return puctSearch.search(position, statistics, deadline);
+        }
+        MCTSNode root = new MCTSNode(position);
 
-        for (int i = 0; i < SIMULATION_COUNT; i++) {
-            MCTSNode selectedNode = root.select();
-            selectedNode.expand();
-            Player winner = selectedNode.simulate();
-            selectedNode.backpropagate(winner);
+        Thread thread = Thread.currentThread();
+        for (int i = 0; i < iterations && !root.isSolved() && !thread.isInterrupted() && !Agent.isExpired(deadline);
+             i++) {
+            MCTSNode selectedNode = root.select(raveEquivalence);
+            if (!selectedNode.isSolved()) {
+                selectedNode = selectedNode.expand(random, moves);
+            }
+            double result = selectedNode.simulate(random, trace, playoutPolicy, moves);
+            selectedNode.backpropagate(result, trace);
+            statistics.countPlayout();
         }
-        
+
+        root.measure(statistics);
         return root.getBestMove();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package MCTS;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a completed MCTS or PUCT search, covering the time taken to choose one move.
+ */
+@Name("mills.MCTSSearch")
+@Label("MCTS Search")
+@Category({"Mills", "Search"})
+@Description("A Monte Carlo tree search for one move completed")
+class MCTSSearchEvent extends Event {
+    @Label("Player")
+    String player;
+    @Label("Playouts")
+    long playouts;
+    @Label("Tree Size")
+    long treeSize;
+    @Label("Depth")
+    int depth;
+    @Label("Score")
+    int score;
+    @Label("Move")
+    String move;
+}
@@ -0,0 +1,20 @@
+package MCTS;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one batch of PUCT leaves evaluated by the network, covering the network call and
+ * the backups.
+ */
+@Name("mills.PUCTBatch")
+@Label("PUCT Batch")
+@Category({"Mills", "Search"})
+@Description("A batch of leaves was evaluated by the policy/value network")
+class PUCTBatchEvent extends Event {
+    @Label("Leaves")
+    int leaves;
+}
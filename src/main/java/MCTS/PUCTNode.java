@@ -0,0 +1,167 @@
+package MCTS;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import game.mills.Move;
+import game.mills.Position;
+import game.mills.SearchStatistics;
+
+/**
+ * A node of the PUCT search tree.
+ * Values are summed from the perspective of the player who made the move leading to this node, in [-1, 1].
+ * Virtual losses are applied while a leaf below this node waits for its network evaluation, so that
+ * concurrent descents spread out over the tree.
+ */
+class PUCTNode {
+    private final Position position;
+    private final PUCTNode parent;
+    private final int move;
+    private final float prior;
+    private final boolean terminal;
+    private List<PUCTNode> children;
+    private int visits;
+    private double valueSum;
+    private boolean pending;
+
+    PUCTNode(Position position, PUCTNode parent, int move, float prior) {
+        this.position = position;
+        this.parent = parent;
+        this.move = move;
+        this.prior = prior;
+        this.terminal = position.isLost();
+    }
+
+    /**
+     * Creates the children of this node with priors taken from the network's destination-node policy.
+     * Priors are normalised over the legal moves; moves sharing a destination share its prior.
+     *
+     * @param policy The policy buffer of the batch.
+     * @param offset The index of this node's policy slot.
+     * @param moves  A scratch buffer of at least {@link Position#MAX_MOVES} entries.
+     */
+    void expand(float[] policy, int offset, int[] moves) {
+        int count = position.generateMoves(moves);
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += Math.max(policy[offset + Move.to(moves[i])], 0f);
+        }
+        children = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float p = total > 0 ? (float) (Math.max(policy[offset + Move.to(moves[i])], 0f) / total) : 1f / count;
+            children.add(new PUCTNode(position.play(moves[i]), this, moves[i], p));
+        }
+    }
+
+    /**
+     * Selects the child with the highest PUCT score: Q + c * P * sqrt(N) / (1 + n).
+     *
+     * @param exploration The exploration constant c.
+     * @return The selected child.
+     */
+    PUCTNode selectChild(double exploration) {
+        PUCTNode best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        double sqrtVisits = Math.sqrt(Math.max(visits, 1));
+        for (PUCTNode child : children) {
+            double q = child.visits == 0 ? 0 : child.valueSum / child.visits;
+            double score = q + exploration * child.prior * sqrtVisits / (1 + child.visits);
+            if (score > bestScore) {
+                bestScore = score;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds a virtual loss of one visit to this node and its ancestors.
+     */
+    void addVirtualLoss(int virtualLoss) {
+        for (PUCTNode node = this; node != null; node = node.parent) {
+            node.visits += virtualLoss;
+            node.valueSum -= virtualLoss;
+        }
+    }
+
+    /**
+     * Backs up a value to this node and its ancestors, removing the virtual loss applied on the way down.
+     *
+     * @param value       The value for the player who made the move leading to this node.
+     * @param virtualLoss The virtual loss to remove, 0 if none was applied.
+     */
+    void backup(double value, int virtualLoss) {
+        for (PUCTNode node = this; node != null; node = node.parent) {
+            node.visits += 1 - virtualLoss;
+            node.valueSum += value + virtualLoss;
+            value = -value;
+        }
+    }
+
+    /**
+     * Gets the most visited child's move.
+     *
+     * @return The packed move, or {@link Move#NONE} if there are no children.
+     */
+    int getBestMove() {
+        if (children == null || children.isEmpty()) {
+            return Move.NONE;
+        }
+        PUCTNode best = children.get(0);
+        for (PUCTNode child : children) {
+            if (child.visits > best.visits) {
+                best = child;
+            }
+        }
+        return best.move;
+    }
+
+    /**
+     * Records the size and depth of the tree below this node and the value of its most visited move.
+     *
+     * @param statistics The statistics of the search.
+     */
+    void measure(SearchStatistics statistics) {
+        int[] depth = new int[1];
+        statistics.setTree(size(0, depth), depth[0]);
+        int bestMove = getBestMove();
+        if (children != null) {
+            for (PUCTNode child : children) {
+                if (child.move == bestMove && child.visits > 0) {
+                    statistics.setScore((int) Math.round(child.valueSum / child.visits * 1000));
+                }
+            }
+        }
+    }
+
+    private int size(int depth, int[] maxDepth) {
+        maxDepth[0] = Math.max(maxDepth[0], depth);
+        int size = 1;
+        if (children != null) {
+            for (PUCTNode child : children) {
+                size += child.size(depth + 1, maxDepth);
+            }
+        }
+        return size;
+    }
+
+    Position getPosition() {
+        return position;
+    }
+
+    boolean isExpanded() {
+        return children != null;
+    }
+
+    boolean isTerminal() {
+        return terminal;
+    }
+
+    boolean isPending() {
+        return pending;
+    }
+
+    void setPending(boolean pending) {
+        this.pending = pending;
+    }
+}
@@ -0,0 +1,173 @@
+package MCTS;
+
+import game.mills.Agent;
+import game.mills.Move;
+import game.mills.Position;
+import game.mills.SearchStatistics;
+
+/**
+ * PUCT search guided by a {@link PolicyValueNetwork}, in the style of AlphaZero.
+ * <p>
+ * Each step descends from the root up to {@code batchSize} times. Every descent applies a virtual loss along
+ * its path, so later descents of the same step explore other lines. The leaves collected this way are
+ * encoded into one input buffer and evaluated by a single batched network call, after which they are
+ * expanded with the network's priors and their values are backed up.
+ * Terminal leaves are backed up immediately without consulting the network.
+ * <p>
+ * A search instance reuses its buffers and must only be used by one thread at a time.
+ */
+public class PUCTSearch {
+    private static final double DEFAULT_EXPLORATION = 1.5;
+    private static final int VIRTUAL_LOSS = 1;
+
+    private final PolicyValueNetwork network;
+    private final int simulations;
+    private final int batchSize;
+    private final double exploration;
+
+    private final PUCTNode[] leaves;
+    private final float[] inputs;
+    private final float[] policy;
+    private final float[] values;
+    private final int[] moves = new int[Position.MAX_MOVES];
+    private int leafCount;
+
+    /**
+     * Constructs a PUCT search with the default exploration constant.
+     *
+     * @param network     The network that provides priors and values.
+     * @param simulations The number of leaf evaluations per move.
+     * @param batchSize   The maximum number of leaves evaluated per network call.
+     */
+    public PUCTSearch(PolicyValueNetwork network, int simulations, int batchSize) {
+        this(network, simulations, batchSize, DEFAULT_EXPLORATION);
+    }
+
+    /**
+     * Constructs a PUCT search.
+     *
+     * @param network     The network that provides priors and values.
+     * @param simulations The number of leaf evaluations per move.
+     * @param batchSize   The maximum number of leaves evaluated per network call.
+     * @param exploration The exploration constant c of the PUCT formula.
+     */
+    public PUCTSearch(PolicyValueNetwork network, int simulations, int batchSize, double exploration) {
+        this.network = network;
+        this.simulations = simulations;
+        this.batchSize = batchSize;
+        this.exploration = exploration;
+        this.leaves = new PUCTNode[batchSize];
+        this.inputs = new float[batchSize * PolicyValueNetwork.INPUT_SIZE];
+        this.policy = new float[batchSize * PolicyValueNetwork.POLICY_SIZE];
+        this.values = new float[batchSize];
+    }
+
+    /**
+     * Searches a position and returns the most visited move. The search stops early if the thread is interrupted.
+     *
+     * @param position The position to search.
+     * @return The best packed move, or {@link Move#NONE} if there is none.
+     */
+    public int search(Position position) {
+        return search(position, new SearchStatistics());
+    }
+
+    /**
+     * Searches a position and returns the most visited move, recording the work done.
+     *
+     * @param position   The position to search.
+     * @param statistics Receives the descents, network evaluations and the tree of the search.
+     * @return The best packed move, or {@link Move#NONE} if there is none.
+     */
+    public int search(Position position, SearchStatistics statistics) {
+        return search(position, statistics, Agent.NO_DEADLINE);
+    }
+
+    /**
+     * Searches a position until the simulations are used up or the deadline has passed.
+     *
+     * @param position   The position to search.
+     * @param statistics Receives the descents, network evaluations and the tree of the search.
+     * @param deadline   The {@link System#nanoTime()} at which the search stops, or {@link Agent#NO_DEADLINE}.
+     * @return The best packed move, or {@link Move#NONE} if there is none.
+     */
+    public int search(Position position, SearchStatistics statistics, long deadline) {
+        PUCTNode root = new PUCTNode(position, null, Move.NONE, 1f);
+        if (root.isTerminal()) {
+            return Move.NONE;
+        }
+        leaves[0] = root;
+        network.encode(position, inputs, 0);
+        evaluateLeaves(1, false);
+        statistics.countLeafEvaluation();
+
+        int done = 0;
+        Thread thread = Thread.currentThread();
+        while (done < simulations && !thread.isInterrupted() && !Agent.isExpired(deadline)) {
+            int descents = collectLeaves(root, Math.min(batchSize, simulations - done));
+            done += descents;
+            statistics.countPlayouts(descents);
+            if (leafCount > 0) {
+                PUCTBatchEvent event = new PUCTBatchEvent();
+                event.begin();
+                evaluateLeaves(leafCount, true);
+                statistics.countLeafEvaluations(leafCount);
+                if (event.shouldCommit()) {
+                    event.leaves = leafCount;
+                    event.commit();
+                }
+            }
+        }
+        root.measure(statistics);
+        return root.getBestMove();
+    }
+
+    /**
+     * Descends repeatedly from the root, applying virtual losses, until enough descents are made or one runs
+     * into a leaf that is already waiting for evaluation. The leaves to evaluate are left in {@code leaves}.
+     *
+     * @return The number of descents that counted as simulations.
+     */
+    private int collectLeaves(PUCTNode root, int wanted) {
+        leafCount = 0;
+        int descent = 0;
+        for (; descent < wanted; descent++) {
+            PUCTNode node = root;
+            while (node.isExpanded() && !node.isTerminal()) {
+                node = node.selectChild(exploration);
+            }
+            if (node.isTerminal()) {
+                // The side to move in a terminal node has lost.
+                node.backup(1.0, 0);
+            } else if (node.isPending()) {
+                // Collision with a leaf already in this batch: evaluate what we have.
+                break;
+            } else {
+                node.setPending(true);
+                node.addVirtualLoss(VIRTUAL_LOSS);
+                network.encode(node.getPosition(), inputs, leafCount * PolicyValueNetwork.INPUT_SIZE);
+                leaves[leafCount++] = node;
+            }
+        }
+        return descent;
+    }
+
+    /**
+     * Evaluates the collected leaves with one network call, expands them and backs up their values.
+     *
+     * @param count  The number of leaves in {@code leaves}.
+     * @param backup False for the root, whose value is not needed.
+     */
+    private void evaluateLeaves(int count, boolean backup) {
+        network.evaluate(inputs, count, policy, values);
+        for (int i = 0; i < count; i++) {
+            PUCTNode leaf = leaves[i];
+            leaf.expand(policy, i * PolicyValueNetwork.POLICY_SIZE, moves);
+            if (backup) {
+                leaf.setPending(false);
+                // The network value is for the side to move; the node stores it for the player who moved into it.
+                leaf.backup(-values[i], VIRTUAL_LOSS);
+            }
+        }
+    }
+}
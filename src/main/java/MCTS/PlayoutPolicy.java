@@ -0,0 +1,42 @@
+package MCTS;
+
+import java.util.Random;
+
+import game.mills.Position;
+
+/**
+ * A PlayoutPolicy decides which moves are played during the simulation step of MCTS and when a
+ * playout may stop early and return a static evaluation instead of a game result.
+ */
+public interface PlayoutPolicy {
+    /**
+     * Chooses one of the legal moves of a position.
+     *
+     * @param position The current playout position.
+     * @param moves    The legal packed moves.
+     * @param count    The number of legal moves in the buffer.
+     * @param random   The random source of the playout.
+     * @return The chosen packed move.
+     */
+    int select(Position position, int[] moves, int count, Random random);
+
+    /**
+     * Gets the number of plies after which a playout is cut off and evaluated statically.
+     *
+     * @return The cutoff in plies, or 0 to always play until the game ends.
+     */
+    default int cutoff() {
+        return 0;
+    }
+
+    /**
+     * Evaluates a position at the cutoff.
+     *
+     * @param position The position reached by the playout.
+     * @param side     The side for which the result is requested.
+     * @return The expected result for the side between 0 (loss) and 1 (win).
+     */
+    default double evaluate(Position position, int side) {
+        return 0.5;
+    }
+}
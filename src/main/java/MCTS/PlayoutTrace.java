@@ -0,0 +1,57 @@
+package MCTS;
+
+import java.util.Arrays;
+
+/**
+ * Records the moves played below a node during one MCTS iteration, for All-Moves-As-First (RAVE) updates.
+ * Moves are indexed by side and packed move, so membership checks are a single bit test.
+ * The trace is reused between iterations to keep the search allocation-free.
+ */
+final class PlayoutTrace {
+    private static final int MOVE_SPACE = 1 << 15;
+
+    private final long[] seen = new long[2 * MOVE_SPACE / Long.SIZE];
+    private int[] entries = new int[256];
+    private int length;
+
+    /**
+     * Records that a side played a move somewhere below the nodes that are still to be updated.
+     *
+     * @param side The side that played the move.
+     * @param move The packed move.
+     */
+    void add(int side, int move) {
+        int index = side * MOVE_SPACE + move;
+        long bit = 1L << index;
+        if ((seen[index >>> 6] & bit) != 0) {
+            return;
+        }
+        seen[index >>> 6] |= bit;
+        if (length == entries.length) {
+            entries = Arrays.copyOf(entries, length * 2);
+        }
+        entries[length++] = index;
+    }
+
+    /**
+     * Checks if a side played a move below the current node.
+     *
+     * @param side The side.
+     * @param move The packed move.
+     * @return True if the move was recorded for the side.
+     */
+    boolean contains(int side, int move) {
+        int index = side * MOVE_SPACE + move;
+        return (seen[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Clears all recorded moves.
+     */
+    void clear() {
+        for (int i = 0; i < length; i++) {
+            seen[entries[i] >>> 6] = 0;
+        }
+        length = 0;
+    }
+}
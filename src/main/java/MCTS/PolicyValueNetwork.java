@@ -0,0 +1,38 @@
+package MCTS;
+
+import game.mills.Position;
+
+/**
+ * A PolicyValueNetwork provides move priors and position values for the PUCT search.
+ * Positions are evaluated in batches: the search collects many leaves and hands them over in a single call,
+ * which is what makes network inference affordable inside the search.
+ */
+public interface PolicyValueNetwork {
+    /**
+     * Number of input floats per position.
+     */
+    int INPUT_SIZE = Position.POINTS;
+    /**
+     * Number of policy outputs per position, one per destination node.
+     */
+    int POLICY_SIZE = Position.POINTS;
+
+    /**
+     * Writes the network input for a position into a batch buffer.
+     *
+     * @param position The position to encode.
+     * @param inputs   The batch input buffer.
+     * @param offset   The index of the first float of this position's slot.
+     */
+    void encode(Position position, float[] inputs, int offset);
+
+    /**
+     * Evaluates a batch of encoded positions.
+     *
+     * @param inputs    The encoded positions, {@link #INPUT_SIZE} floats per position.
+     * @param batchSize The number of positions in the batch.
+     * @param policy    Receives {@link #POLICY_SIZE} unnormalised priors per position, indexed by destination node.
+     * @param values    Receives one value per position in [-1, 1] from the perspective of the side to move.
+     */
+    void evaluate(float[] inputs, int batchSize, float[] policy, float[] values);
+}
@@ -0,0 +1,15 @@
+package MCTS;
+
+import java.util.Random;
+
+import game.mills.Position;
+
+/**
+ * The playout policy of plain MCTS: every legal move is equally likely and playouts run to the end.
+ */
+public class RandomPlayoutPolicy implements PlayoutPolicy {
+    @Override
+    public int select(Position position, int[] moves, int count, Random random) {
+        return moves[random.nextInt(count)];
+    }
+}
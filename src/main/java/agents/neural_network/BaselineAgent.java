@@ -1,24 +1,21 @@
 package agents.neural_network;
 
+import game.mills.Agent;
 import game.mills.Game;
-import game.mills.InvalidMove;
-import game.mills.Node;
-import game.mills.Player;
-import gui.MillGameUI;
+import game.mills.Move;
+import game.mills.Position;
 import javafx.scene.paint.Color;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The baseline agent, that always makes a completely pseudorandom move.
  */
 
-public class BaselineAgent implements Player {
+public class BaselineAgent implements Agent {
     @Getter
     private String name;
     @Getter @Setter
@@ -29,6 +26,7 @@ public class BaselineAgent implements Player {
     private int stonesOnBoard;
     @Setter
     private Game game;
+    private final Random random = new Random();
 
     /**
      * Constructor for the BaselineAgent class.
@@ -61,117 +59,29 @@ public class BaselineAgent implements Player {
         stonesOnBoard--;
     }
 
-    public void makeMove() {
-        if (stonesToPlace > 0) {
-            placePiece();
-        } else {
-            movePiece();
-        }
-    }
-
-    /**
-     * Places a piece on the board.
-     */
-    private void placePiece() {
-        List<Integer> nodeIndices = new ArrayList<>();
-        for (int i = 0; i < 24; i++) {
-            nodeIndices.add(i);
-        }
-        Collections.shuffle(nodeIndices); // Shuffle the node indices to randomize the placement
-
-        for (int i : nodeIndices) {
-            Node node = game.getBoard().getNode(i);
-            if (!node.isOccupied()) {
-                try {
-                    game.placePiece(i);
-                    MillGameUI.incrementBaselineMoves();
-                    if (game.isMillFormed()) {
-                        removeOpponentPiece();
-                    }
-                    break;
-                } catch (InvalidMove e) {
-                    // Move to the next node if the move is invalid
-                    continue;
-                }
-            }
-        }
+    @Override
+    public void setSeed(long seed) {
+        random.setSeed(seed);
     }
 
     /**
-     * Moves a piece on the board.
+     * Chooses a random move at once; the deadline never matters.
      */
-    private void movePiece() {
-        boolean canFly = game.canFly(this);
-        List<Integer> nodeIndices = new ArrayList<>();
-        for (int i = 0; i < 24; i++) {
-            nodeIndices.add(i);
-        }
-        Collections.shuffle(nodeIndices); // Shuffle to add randomness
-    
-        for (int fromIndex : nodeIndices) {
-            Node fromNode = game.getBoard().getNode(fromIndex);
-            if (fromNode.isOccupied() && fromNode.getOccupant() == this) {
-                List<Integer> possibleToIndices = new ArrayList<>();
-    
-                if (canFly) {
-                    // Can fly to any empty node
-                    for (int toIndex = 0; toIndex < 24; toIndex++) {
-                        Node toNode = game.getBoard().getNode(toIndex);
-                        if (!toNode.isOccupied()) {
-                            possibleToIndices.add(toIndex);
-                        }
-                    }
-                } else {
-                    // Only adjacent nodes
-                    for (Node toNode : game.getBoard().getNeighbours(fromNode)) {
-                        if (!toNode.isOccupied()) {
-                            possibleToIndices.add(toNode.getId());
-                        }
-                    }
-                }
-    
-                Collections.shuffle(possibleToIndices); // Shuffle possible moves
-                for (int toIndex : possibleToIndices) {
-                    try {
-                        game.makeMove(fromNode.getId(), toIndex);
-                        MillGameUI.incrementBaselineMoves();
-                        if (game.isMillFormed()) {
-                            removeOpponentPiece();
-                        }
-                        return;
-                    } catch (InvalidMove e) {
-                        // If the move is invalid, try the next one
-                    }
-                }
-            }
-        }
-        // If no valid moves are found
+    @Override
+    public CompletableFuture<Integer> requestMove(Position position, long deadline) {
+        return CompletableFuture.completedFuture(chooseMove(position));
     }
 
     /**
-     * Removes a random opponents piece
+     * Chooses a uniformly random legal move, including a random removal if the move closes a mill.
+     * Only reads the position, so it may run on any thread.
+     *
+     * @param position The position.
+     * @return The packed move, or {@link Move#NONE} if there is none.
      */
-    private void removeOpponentPiece() {
-        for (int i = 0; i < 24; i++) {
-            Node node = game.getBoard().getNode(i);
-            if (node.isOccupied() && node.getOccupant().getColor() == Color.BLACK && !game.getBoard().isPartOfMill(node)) {
-                try {
-                    game.removePiece(i);
-                    break;
-                } catch (InvalidMove e) {
-                    // Move to the next node if the removal is invalid
-                    continue;
-                }
-            } else if (node.isOccupied() && node.getOccupant().getColor() == Color.WHITE && !game.getBoard().isPartOfMill(node)) {
-                try {
-                    game.removePiece(i);
-                    break;
-                } catch (InvalidMove e) {
-                    continue;
-                }
-            }
-        }
+    public int chooseMove(Position position) {
+        int[] moves = new int[Position.MAX_MOVES];
+        int count = position.generateMoves(moves);
+        return count == 0 ? Move.NONE : moves[random.nextInt(count)];
     }
-
-
 }
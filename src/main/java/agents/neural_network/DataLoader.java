@@ -16,7 +16,16 @@ import org.nd4j.linalg.factory.Nd4j;
 @Log
 public class DataLoader {
     protected static List<INDArray> readData() {
-        String dir = "Data";
+        return readData("Data");
+    }
+
+    /**
+     * Reads the board states saved by finished games.
+     *
+     * @param dir The directory with the saved states.
+     * @return The stacked network inputs and, second, the stacked labels.
+     */
+    public static List<INDArray> readData(String dir) {
         List<Map<INDArray, INDArray>> dataList = new ArrayList<>();
 
         try {
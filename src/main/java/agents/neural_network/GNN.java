@@ -21,6 +21,8 @@ import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Map;
 import java.util.logging.Level;
 
@@ -53,8 +55,40 @@ GNN {
         log.log(Level.INFO, gnn.summary());
     }
 
+    private GNN(ComputationGraph gnn) {
+        this.gnn = gnn;
+    }
 
+    /**
+     * Loads a network previously written with {@link #save(File)}.
+     *
+     * @param file The model file.
+     * @return The loaded network.
+     * @throws IOException if the file cannot be read.
+     */
+    public static GNN load(File file) throws IOException {
+        return new GNN(ComputationGraph.load(file, false));
+    }
 
+    /**
+     * Creates a copy with the same weights. A network must not be shared between concurrently running
+     * searches, so each of them gets a copy instead of loading the model file again.
+     *
+     * @return The copy.
+     */
+    public GNN copy() {
+        return new GNN(gnn.clone());
+    }
+
+    /**
+     * Saves the network (without updater state) so that players can load it later.
+     *
+     * @param file The model file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void save(File file) throws IOException {
+        gnn.save(file, false);
+    }
 
     public void fit(INDArray[] inputs) {
         DataSet dataSet = new DataSet(inputs[0], inputs[1]);
@@ -63,4 +97,13 @@ GNN {
     public INDArray[] output(INDArray[] input) {
         return gnn.output(input);
     }
+
+    /**
+     * Gets the loss of the last call to {@link #fit(INDArray[])}.
+     *
+     * @return The loss.
+     */
+    public double score() {
+        return gnn.score();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package agents.neural_network;
+
+import MCTS.PolicyValueNetwork;
+import game.mills.Position;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Arrays;
+
+/**
+ * Adapts the {@link GNN} to the {@link PolicyValueNetwork} interface used by the PUCT search.
+ * <p>
+ * The input is the same 24-float encoding as {@code Game.boardToINDArray}: 1 for a stone of the first player,
+ * 2 for a stone of the second player, 0 for an empty point.
+ * The GNN is trained to predict the final owner label of every point (1 or 2 for the winner's stones).
+ * For the side to move this is read as a per-point ownership balance: the prior of a destination point is the
+ * exponential of its balance, the value is the tanh of the summed balance.
+ * Since the side to move is not part of the GNN input, {@link #encode} remembers it per batch slot; an
+ * instance therefore belongs to one search at a time.
+ */
+public class GNNPolicyValueNetwork implements PolicyValueNetwork {
+    private static final double VALUE_SCALE = 4.0;
+
+    private final GNN gnn;
+    private int[] sides = new int[64];
+
+    /**
+     * Constructs the adapter around a (trained) GNN.
+     *
+     * @param gnn The network.
+     */
+    public GNNPolicyValueNetwork(GNN gnn) {
+        this.gnn = gnn;
+    }
+
+    @Override
+    public void encode(Position position, float[] inputs, int offset) {
+        int first = position.stones(0);
+        int second = position.stones(1);
+        int slot = offset / INPUT_SIZE;
+        if (slot >= sides.length) {
+            sides = Arrays.copyOf(sides, Math.max(slot + 1, sides.length * 2));
+        }
+        sides[slot] = position.sideToMove();
+        for (int i = 0; i < Position.POINTS; i++) {
+            int bit = 1 << i;
+            inputs[offset + i] = (first & bit) != 0 ? 1f : (second & bit) != 0 ? 2f : 0f;
+        }
+    }
+
+    @Override
+    public void evaluate(float[] inputs, int batchSize, float[] policy, float[] values) {
+        int length = batchSize * INPUT_SIZE;
+        float[] data = inputs.length == length ? inputs : Arrays.copyOf(inputs, length);
+        INDArray output = gnn.output(new INDArray[]{Nd4j.create(data, new long[]{batchSize, INPUT_SIZE})})[0];
+
+        for (int row = 0; row < batchSize; row++) {
+            int ownLabel = sides[row] + 1;
+            double balance = 0;
+            for (int i = 0; i < POLICY_SIZE; i++) {
+                double out = output.getDouble(row, i);
+                double own = ownership(out, ownLabel);
+                double opponent = ownership(out, 3 - ownLabel);
+                balance += own - opponent;
+                policy[row * POLICY_SIZE + i] = (float) Math.exp(own - opponent);
+            }
+            values[row] = (float) Math.tanh(balance / VALUE_SCALE);
+        }
+    }
+
+    private static double ownership(double output, int label) {
+        return Math.max(0.0, 1.0 - Math.abs(output - label));
+    }
+}
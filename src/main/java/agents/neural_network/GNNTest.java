@@ -8,12 +8,14 @@ import javafx.scene.paint.Color;
 import lombok.extern.java.Log;
 import org.nd4j.linalg.api.ndarray.INDArray;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 
 @Log
 public class GNNTest {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         Board board = new Board();
         Player player1 = new HumanPlayer("P1", Color.WHITE);
         Player player2 = new HumanPlayer("P2", Color.BLACK);
@@ -25,5 +27,6 @@ public class GNNTest {
         INDArray[] array = new INDArray[]{game.boardToINDArray(board)};
         gnn.fit(new INDArray[]{data.get(0), data.get(1)});
         gnn.output(array);
+        gnn.save(new File(NeuralNetworkPlayer.DEFAULT_MODEL_FILE));
     }
 }
@@ -0,0 +1,203 @@
+package agents.neural_network;
+
+import MCTS.PolicyValueNetwork;
+import book.OpeningBook;
+import game.mills.Agent;
+import game.mills.Game;
+import game.mills.Move;
+import game.mills.Position;
+import game.mills.SearchExecutor;
+import javafx.scene.paint.Color;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A fast learned agent that picks its moves with the {@link GNN}.
+ * <p>
+ * With depth 1 all legal successor positions are encoded into one batch and scored by a single forward pass;
+ * the move leading to the best successor is played. With a larger depth a shallow alpha-beta (negamax)
+ * search is run whose frontier nodes score all their successors the same way, one batch per frontier node.
+ * Placement moves found in the {@link OpeningBook} are played without consulting the network.
+ */
+@Slf4j
+public class NeuralNetworkPlayer implements Agent {
+    /**
+     * The file {@link GNNTest} writes the trained network to.
+     */
+    public static final String DEFAULT_MODEL_FILE = "gnn_model.zip";
+    private static final double WIN = 2.0;
+
+    @Getter
+    private String name;
+    @Getter @Setter
+    private Color color;
+    @Getter
+    private int stonesToPlace;
+    @Getter
+    private int stonesOnBoard;
+    @Setter
+    private Game game;
+    @Setter
+    private OpeningBook openingBook = OpeningBook.getDefault();
+
+    private final PolicyValueNetwork network;
+    private final int depth;
+    private final int[][] moves;
+    private final float[] inputs = new float[Position.MAX_MOVES * PolicyValueNetwork.INPUT_SIZE];
+    private final float[] policy = new float[Position.MAX_MOVES * PolicyValueNetwork.POLICY_SIZE];
+    private final float[] values = new float[Position.MAX_MOVES];
+
+    /**
+     * Constructor for the NeuralNetworkPlayer class.
+     *
+     * @param name  The name of the player.
+     * @param color The color of the player's pieces.
+     * @param gnn   The trained network.
+     * @param depth The search depth in plies; 1 scores the successors only.
+     */
+    public NeuralNetworkPlayer(String name, Color color, GNN gnn, int depth) {
+        this(name, color, new GNNPolicyValueNetwork(gnn), depth);
+    }
+
+    /**
+     * Constructor for the NeuralNetworkPlayer class with any value network.
+     *
+     * @param name    The name of the player.
+     * @param color   The color of the player's pieces.
+     * @param network The network whose values are used to score positions.
+     * @param depth   The search depth in plies; 1 scores the successors only.
+     */
+    public NeuralNetworkPlayer(String name, Color color, PolicyValueNetwork network, int depth) {
+        this.name = name;
+        this.color = color;
+        this.stonesToPlace = 9;
+        this.stonesOnBoard = 0;
+        this.network = network;
+        this.depth = Math.max(1, depth);
+        this.moves = new int[this.depth][Position.MAX_MOVES];
+    }
+
+    @Override
+    public void decrementStonesToPlace() {
+        if (stonesToPlace > 0) {
+            stonesToPlace--;
+            stonesOnBoard++;
+        }
+    }
+
+    @Override
+    public void incrementStonesOnBoard() {
+        stonesOnBoard++;
+    }
+
+    @Override
+    public void decrementStonesOnBoard() {
+        stonesOnBoard--;
+    }
+
+    /**
+     * Chooses the move in the background. The search has a fixed depth, so the deadline is not used.
+     */
+    @Override
+    public CompletableFuture<Integer> requestMove(Position position, long deadline) {
+        return SearchExecutor.compute(() -> chooseMove(position));
+    }
+
+    /**
+     * Chooses the move for the side to move of a position: from the opening book if it has one, otherwise with
+     * the network. Only reads the position, so it may run on any thread.
+     *
+     * @param position The position.
+     * @return The best packed move, or {@link Move#NONE} if there is none.
+     */
+    public int chooseMove(Position position) {
+        int bookMove = openingBook != null ? openingBook.probe(position) : Move.NONE;
+        return bookMove != Move.NONE ? bookMove : searchMove(position);
+    }
+
+    /**
+     * Chooses the best move for the side to move of a position with the network.
+     */
+    private int searchMove(Position position) {
+        int[] rootMoves = moves[0];
+        int count = position.generateMoves(rootMoves);
+        if (count == 0) {
+            return Move.NONE;
+        }
+        if (depth == 1) {
+            scoreSuccessors(position, rootMoves, count);
+            int best = 0;
+            for (int i = 1; i < count; i++) {
+                if (values[i] > values[best]) {
+                    best = i;
+                }
+            }
+            return rootMoves[best];
+        }
+
+        int bestMove = rootMoves[0];
+        double alpha = -Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            double score = -negamax(position.play(rootMoves[i]), 1, -Double.MAX_VALUE, -alpha);
+            if (score > alpha) {
+                alpha = score;
+                bestMove = rootMoves[i];
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Negamax alpha-beta search with the network as leaf evaluator.
+     *
+     * @param position The position to search.
+     * @param ply      The distance from the root, also the index of the move buffer to use.
+     * @return The score for the side to move.
+     */
+    private double negamax(Position position, int ply, double alpha, double beta) {
+        if (position.isLost()) {
+            return -WIN;
+        }
+        int[] buffer = moves[ply];
+        int count = position.generateMoves(buffer);
+        if (ply == depth - 1) {
+            scoreSuccessors(position, buffer, count);
+            double best = -Double.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                best = Math.max(best, values[i]);
+            }
+            return best;
+        }
+        double best = -Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            double score = -negamax(position.play(buffer[i]), ply + 1, -beta, -alpha);
+            best = Math.max(best, score);
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scores all successors of a position with one batched forward pass.
+     * Afterwards {@code values[i]} holds the score of move i for the side to move of {@code position};
+     * successors that are already lost for the opponent score as a win.
+     */
+    private void scoreSuccessors(Position position, int[] buffer, int count) {
+        Position[] successors = new Position[count];
+        for (int i = 0; i < count; i++) {
+            successors[i] = position.play(buffer[i]);
+            network.encode(successors[i], inputs, i * PolicyValueNetwork.INPUT_SIZE);
+        }
+        network.evaluate(inputs, count, policy, values);
+        for (int i = 0; i < count; i++) {
+            // The network value is for the side to move in the successor, i.e. the opponent.
+            values[i] = successors[i].isLost() ? (float) WIN : -values[i];
+        }
+    }
+}
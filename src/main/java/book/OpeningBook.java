@@ -0,0 +1,156 @@
+package book;
+
+import game.mills.Move;
+import game.mills.Position;
+import game.mills.Symmetry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The OpeningBook class gives access to the placement-phase statistics written by {@link OpeningBookGenerator}.
+ * <p>
+ * The book stores, per canonical position (see {@link Symmetry#canonicalKey(Position)}), every move played from
+ * it in self-play together with the number of games and the points scored by the side that played it
+ * (2 for a win, 1 for a draw). The move is stored in the frame of the canonical position, so one entry serves all
+ * 16 symmetric positions.
+ * <p>
+ * The file is a header (magic, version, entry count) followed by fixed-size entries sorted by key and move.
+ * It is memory-mapped, and a lookup is a binary search over the entries, so probing costs a few microseconds
+ * and nothing has to be loaded up front.
+ */
+@Slf4j
+public class OpeningBook {
+    /**
+     * The file the generator writes by default and {@link #getDefault()} loads.
+     */
+    public static final String DEFAULT_FILE = "opening.book";
+    /**
+     * Moves played in fewer games than this are not trusted.
+     */
+    public static final int DEFAULT_MIN_GAMES = 4;
+
+    static final int MAGIC = 0x4D4F424B; // "MOBK"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 12;
+    // key (long), move, games, points (ints)
+    static final int ENTRY_SIZE = 20;
+
+    private static volatile OpeningBook defaultBook;
+    private static volatile boolean defaultLoaded;
+
+    private final MappedByteBuffer entries;
+    private final int count;
+    private final int minGames;
+
+    private OpeningBook(MappedByteBuffer entries, int count, int minGames) {
+        this.entries = entries;
+        this.count = count;
+        this.minGames = minGames;
+    }
+
+    /**
+     * Opens a book file.
+     *
+     * @param file     The book file.
+     * @param minGames The number of games a move needs before it is played from the book.
+     * @return The book.
+     * @throws IOException if the file cannot be read or is not an opening book.
+     */
+    public static OpeningBook open(Path file, int minGames) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(file + " is not an opening book");
+            }
+            int count = header.getInt();
+            MappedByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (long) count * ENTRY_SIZE);
+            return new OpeningBook(entries, count, minGames);
+        }
+    }
+
+    /**
+     * Gets the book in {@link #DEFAULT_FILE}, loading it on first use.
+     *
+     * @return The book, or null if there is no (readable) book file.
+     */
+    public static OpeningBook getDefault() {
+        if (!defaultLoaded) {
+            synchronized (OpeningBook.class) {
+                if (!defaultLoaded) {
+                    Path file = Paths.get(DEFAULT_FILE);
+                    if (Files.isRegularFile(file)) {
+                        try {
+                            defaultBook = open(file, DEFAULT_MIN_GAMES);
+                            log.info("Loaded opening book with {} entries", defaultBook.count);
+                        } catch (IOException e) {
+                            log.warn("Could not load opening book {}", file, e);
+                        }
+                    }
+                    defaultLoaded = true;
+                }
+            }
+        }
+        return defaultBook;
+    }
+
+    /**
+     * Finds the book move with the best score for the side to move.
+     *
+     * @param position The position.
+     * @return The packed move in the frame of {@code position}, or {@link Move#NONE} if the book has no
+     * sufficiently played move for it.
+     */
+    public int probe(Position position) {
+        if (!position.isPlacing(position.sideToMove())) {
+            return Move.NONE;
+        }
+        int symmetry = Symmetry.canonicalSymmetry(position);
+        long key = Symmetry.apply(symmetry, position).key();
+        int bestMove = Move.NONE;
+        double bestScore = -1;
+        for (int i = firstEntry(key); i < count && keyAt(i) == key; i++) {
+            int offset = i * ENTRY_SIZE;
+            int games = entries.getInt(offset + 12);
+            if (games < minGames) {
+                continue;
+            }
+            double score = entries.getInt(offset + 16) / (2.0 * games);
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = entries.getInt(offset + 8);
+            }
+        }
+        return bestMove == Move.NONE ? Move.NONE : Symmetry.mapMove(Symmetry.inverse(symmetry), bestMove);
+    }
+
+    /**
+     * Binary search for the first entry whose key is not smaller than the given one.
+     */
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keyAt(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_SIZE);
+    }
+}
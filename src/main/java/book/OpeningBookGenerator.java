@@ -0,0 +1,148 @@
+package book;
+
+import MCTS.MCTSPlayer;
+import game.mills.Position;
+import game.mills.Symmetry;
+import javafx.scene.paint.Color;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Offline tool that builds an {@link OpeningBook} from self-play.
+ * <p>
+ * Games are played in parallel by MCTS players. The first few plies are random so the games cover many openings.
+ * Every placement move within the book depth is recorded in the frame of the canonical form of its position,
+ * and the final result is credited to it. The aggregated statistics are written sorted by position key and move.
+ * <p>
+ * Usage: {@code OpeningBookGenerator [file] [games] [plies] [iterations]}, by default
+ * {@value OpeningBook#DEFAULT_FILE}, {@value #DEFAULT_GAMES} games, {@value #DEFAULT_PLIES} plies and
+ * {@value #DEFAULT_ITERATIONS} MCTS iterations per move.
+ */
+@Slf4j
+public class OpeningBookGenerator {
+    private static final int DEFAULT_GAMES = 1000;
+    private static final int DEFAULT_PLIES = 12;
+    private static final int DEFAULT_ITERATIONS = 300;
+    private static final int RANDOM_PLIES = 2;
+    private static final int MAX_PLIES = 200;
+
+    private final int plies;
+    private final ThreadLocal<MCTSPlayer> players;
+    // (canonical key, canonical move) -> {games, points}
+    private final Map<Long, Map<Integer, int[]>> statistics = new TreeMap<>();
+
+    /**
+     * Constructs a generator.
+     *
+     * @param plies      The number of plies from the start that go into the book.
+     * @param iterations The MCTS iterations per self-play move.
+     */
+    public OpeningBookGenerator(int plies, int iterations) {
+        this.plies = plies;
+        this.players = ThreadLocal.withInitial(() -> new MCTSPlayer("Book", Color.BLACK, iterations));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : OpeningBook.DEFAULT_FILE);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GAMES;
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PLIES;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_ITERATIONS;
+
+        long start = System.currentTimeMillis();
+        OpeningBookGenerator generator = new OpeningBookGenerator(plies, iterations);
+        generator.playGames(games);
+        int entries = generator.write(file);
+        log.info("Wrote {} entries from {} games to {} in {} s", entries, games, file,
+                (System.currentTimeMillis() - start) / 1000);
+    }
+
+    /**
+     * Plays self-play games in parallel and adds their results to the statistics.
+     *
+     * @param games The number of games.
+     */
+    public void playGames(int games) {
+        IntStream.range(0, games).parallel().forEach(game -> {
+            List<long[]> record = new ArrayList<>();
+            int winner = playGame(ThreadLocalRandom.current(), record);
+            synchronized (statistics) {
+                for (long[] entry : record) {
+                    int side = (int) entry[2];
+                    int points = winner < 0 ? 1 : winner == side ? 2 : 0;
+                    int[] stats = statistics.computeIfAbsent(entry[0], key -> new TreeMap<>())
+                            .computeIfAbsent((int) entry[1], move -> new int[2]);
+                    stats[0]++;
+                    stats[1] += points;
+                }
+            }
+        });
+    }
+
+    /**
+     * Plays one game and records the book plies as {canonical key, canonical move, side}.
+     *
+     * @return The winning side, or -1 for a draw.
+     */
+    private int playGame(Random random, List<long[]> record) {
+        MCTSPlayer player = players.get();
+        int[] moves = new int[Position.MAX_MOVES];
+        Position position = Position.initial();
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            if (position.isLost()) {
+                return 1 - position.sideToMove();
+            }
+            int move;
+            if (ply < RANDOM_PLIES) {
+                move = moves[random.nextInt(position.generateMoves(moves))];
+            } else {
+                move = player.runMCTS(position);
+            }
+            if (ply < plies && position.isPlacing(position.sideToMove())) {
+                int symmetry = Symmetry.canonicalSymmetry(position);
+                record.add(new long[]{Symmetry.apply(symmetry, position).key(),
+                        Symmetry.mapMove(symmetry, move), position.sideToMove()});
+            }
+            position = position.play(move);
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the statistics as a book file.
+     *
+     * @param file The file to write.
+     * @return The number of entries written.
+     * @throws IOException if the file cannot be written.
+     */
+    public int write(Path file) throws IOException {
+        int count = statistics.values().stream().mapToInt(Map::size).sum();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(count);
+            // Both maps are sorted, so the entries come out ordered by key and move.
+            for (Map.Entry<Long, Map<Integer, int[]>> position : statistics.entrySet()) {
+                for (Map.Entry<Integer, int[]> move : position.getValue().entrySet()) {
+                    out.writeLong(position.getKey());
+                    out.writeInt(move.getKey());
+                    out.writeInt(move.getValue()[0]);
+                    out.writeInt(move.getValue()[1]);
+                }
+            }
+        }
+        return count;
+    }
+}
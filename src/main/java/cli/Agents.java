@@ -0,0 +1,138 @@
+package cli;
+
+import MCTS.MCTSPlayer;
+import MCTS.PUCTSearch;
+import agents.neural_network.BaselineAgent;
+import agents.neural_network.GNN;
+import agents.neural_network.GNNPolicyValueNetwork;
+import agents.neural_network.NeuralNetworkPlayer;
+import game.mills.Game;
+import game.mills.Player;
+import javafx.scene.paint.Color;
+import minimax.MinimaxAIPlayer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Creates players from agent specifications of the form {@code name[:strength]}:
+ * <ul>
+ *     <li>{@code baseline}: random legal moves</li>
+ *     <li>{@code minimax[:depth]}: minimax search, depth 3 by default</li>
+ *     <li>{@code mcts[:iterations]}: Monte Carlo tree search, 2000 iterations by default</li>
+ *     <li>{@code nn[:depth]}: search on the values of the trained network, depth 2 by default</li>
+ *     <li>{@code puct[:simulations]}: PUCT search guided by the trained network, 800 simulations by default</li>
+ * </ul>
+ * The network agents use the model file given to the constructor. It is loaded once, when the first network
+ * agent is created, and every network agent gets its own copy, since a network must not be shared between
+ * concurrently running searches. The games are created on one thread, so the factory needs no locking.
+ */
+public class Agents {
+    private static final int PUCT_BATCH_SIZE = 8;
+
+    private final String modelFile;
+    // Loaded on first use; only copies of it play.
+    private GNN network;
+
+    /**
+     * Constructs an agent factory.
+     *
+     * @param modelFile The network model used by {@code nn} and {@code puct} agents.
+     */
+    public Agents(String modelFile) {
+        this.modelFile = modelFile;
+    }
+
+    /**
+     * Checks an agent specification without creating a player.
+     *
+     * @param spec The specification.
+     * @throws IllegalArgumentException if the specification is invalid.
+     */
+    public static void validate(String spec) {
+        String type = type(spec);
+        if (!type.equals("baseline") && !type.equals("minimax") && !type.equals("mcts") && !type.equals("nn")
+                && !type.equals("puct")) {
+            throw new IllegalArgumentException("Unknown agent: " + spec);
+        }
+        strength(spec, 1);
+    }
+
+    /**
+     * Creates a game between two agents. The first agent plays black and moves first.
+     *
+     * @param first  The specification of the first player.
+     * @param second The specification of the second player.
+     * @return The game, not yet started.
+     */
+    public Game newGame(String first, String second) {
+        // Minimax players need the game when they are created, so the players are added afterwards.
+        Game game = new Game(null, null);
+        Player firstPlayer = create(first, "1:" + first, Color.BLACK, game);
+        Player secondPlayer = create(second, "2:" + second, Color.WHITE, game);
+        game.setHumanPlayer1(firstPlayer);
+        game.setSecondPlayer(secondPlayer);
+        game.setCurrentPlayer(firstPlayer);
+        return game;
+    }
+
+    private Player create(String spec, String name, Color color, Game game) {
+        switch (type(spec)) {
+            case "baseline":
+                BaselineAgent baseline = new BaselineAgent(name, color);
+                baseline.setGame(game);
+                return baseline;
+            case "minimax":
+                return new MinimaxAIPlayer(name, color, strength(spec, 3), game);
+            case "mcts":
+                MCTSPlayer mcts = new MCTSPlayer(name, color, strength(spec, 2000));
+                mcts.setGame(game);
+                return mcts;
+            case "nn":
+                NeuralNetworkPlayer network = new NeuralNetworkPlayer(name, color, copyNetwork(), strength(spec, 2));
+                network.setGame(game);
+                return network;
+            case "puct":
+                MCTSPlayer puct = new MCTSPlayer(name, color);
+                puct.setPuctSearch(new PUCTSearch(new GNNPolicyValueNetwork(copyNetwork()), strength(spec, 800),
+                        PUCT_BATCH_SIZE));
+                puct.setGame(game);
+                return puct;
+            default:
+                throw new IllegalArgumentException("Unknown agent: " + spec);
+        }
+    }
+
+    private GNN copyNetwork() {
+        if (network == null) {
+            try {
+                network = GNN.load(new File(modelFile));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load the network " + modelFile, e);
+            }
+        }
+        return network.copy();
+    }
+
+    private static String type(String spec) {
+        int colon = spec.indexOf(':');
+        return colon < 0 ? spec : spec.substring(0, colon);
+    }
+
+    private static int strength(String spec, int defaultValue) {
+        int colon = spec.indexOf(':');
+        if (colon < 0) {
+            return defaultValue;
+        }
+        try {
+            int strength = Integer.parseInt(spec.substring(colon + 1));
+            if (strength > 0) {
+                return strength;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException("Invalid strength in agent " + spec);
+    }
+}
@@ -0,0 +1,83 @@
+package cli;
+
+import MCTS.MCTSPlayer;
+import book.OpeningBook;
+import endgame.EndgameDatabase;
+import game.mills.Move;
+import game.mills.Position;
+import game.mills.SearchStatistics;
+import game.mills.Symmetry;
+import javafx.scene.paint.Color;
+import minimax.EvaluationFunction;
+
+import java.io.PrintStream;
+
+/**
+ * Reports everything the engines know about one position: its keys, the static evaluation, the endgame
+ * database and opening book entries and the move an MCTS search chooses. Writes an {@code analysis} line
+ * followed by a {@code move} line per legal move with its move-ordering score and the evaluation after it.
+ */
+public class AnalyseCommand implements Command {
+    @Override
+    public String getName() {
+        return "analyse-position";
+    }
+
+    @Override
+    public String getUsage() {
+        return "--position \"000000000000000000000000 9/9 1\" --iterations 2000";
+    }
+
+    @Override
+    public void run(Options options, PrintStream out) {
+        Position position = Position.parse(options.getString("position", Position.initial().toString()));
+        int iterations = options.getInt("iterations", 2000);
+        int side = position.sideToMove();
+        int[] moves = new int[Position.MAX_MOVES];
+        int count = position.generateMoves(moves);
+
+        JsonLine analysis = new JsonLine("analysis").put("position", position.toString())
+                .put("key", Long.toHexString(position.key()))
+                .put("canonical_key", Long.toHexString(Symmetry.canonicalKey(position)))
+                .put("side_to_move", side + 1)
+                .put("legal_moves", count)
+                .put("lost", position.isLost())
+                .put("static_eval", EvaluationFunction.evaluate(position, side));
+
+        EndgameDatabase database = EndgameDatabase.getDefault();
+        int entry = database == null ? EndgameDatabase.NOT_COVERED : database.probe(position);
+        if (entry == EndgameDatabase.NOT_COVERED) {
+            analysis.put("endgame", (String) null);
+        } else {
+            analysis.put("endgame", EndgameDatabase.isWin(entry) ? "win" : EndgameDatabase.isLoss(entry) ? "loss" : "draw")
+                    .put("endgame_distance", EndgameDatabase.distance(entry))
+                    .put("endgame_move", Move.toString(database.bestMove(position, new int[Position.MAX_MOVES])));
+        }
+
+        OpeningBook book = OpeningBook.getDefault();
+        analysis.put("book_move", book == null ? null : Move.toString(book.probe(position)));
+
+        if (count > 0 && !position.isLost()) {
+            SearchStatistics.setAllocationAccounting(true);
+            MCTSPlayer player = new MCTSPlayer("Analysis", Color.BLACK, iterations);
+            player.setOpeningBook(null);
+            analysis.put("mcts_move", Move.toString(player.runMCTS(position)));
+            SearchStatistics statistics = player.getSearchStatistics();
+            analysis.put("mcts_iterations", iterations)
+                    .put("mcts_playouts", statistics.getPlayouts())
+                    .put("mcts_playouts_per_sec", statistics.getPlayoutsPerSecond())
+                    .put("mcts_tree_size", statistics.getNodes())
+                    .put("mcts_depth", statistics.getDepthReached())
+                    .put("mcts_score", statistics.getScore())
+                    .put("mcts_allocated_bytes", statistics.getAllocatedBytes())
+                    .put("mcts_ms", statistics.getNanos() / 1_000_000);
+        }
+        out.println(analysis);
+
+        for (int i = 0; i < count; i++) {
+            out.println(new JsonLine("move").put("move", Move.toString(moves[i]))
+                    .put("order_score", EvaluationFunction.scoreMove(position, moves[i]))
+                    .put("eval_after", EvaluationFunction.evaluate(position.play(moves[i]), side)));
+        }
+    }
+}
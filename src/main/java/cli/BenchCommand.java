@@ -0,0 +1,123 @@
+package cli;
+
+import MCTS.MCTSPlayer;
+import game.mills.Position;
+import game.mills.SearchStatistics;
+import javafx.scene.paint.Color;
+import minimax.EvaluationFunction;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the speed of move generation, static evaluation and MCTS on a fixed set of positions, taken from
+ * a seeded random game so every run uses the same ones. Each benchmark runs once to warm up and is then
+ * repeated; writes a {@code bench} line per benchmark with the best repetition and the heap memory it
+ * allocated, -1 if the JVM does not measure allocations.
+ */
+public class BenchCommand implements Command {
+    private static final long SEED = 20240601L;
+    private static final int[] BENCH_PLIES = {0, 6, 12, 18, 24, 30};
+
+    @Override
+    public String getName() {
+        return "bench";
+    }
+
+    @Override
+    public String getUsage() {
+        return "--repeat 3 --perft-depth 4 --iterations 2000";
+    }
+
+    @Override
+    public void run(Options options, PrintStream out) {
+        int repeat = options.getInt("repeat", 3);
+        int perftDepth = options.getInt("perft-depth", 4);
+        int iterations = options.getInt("iterations", 2000);
+        if (repeat < 1 || perftDepth < 1 || iterations < 1) {
+            throw new IllegalArgumentException("repeat, perft-depth and iterations must be positive");
+        }
+        List<Position> positions = benchPositions();
+
+        int[][] moves = new int[perftDepth][Position.MAX_MOVES];
+        report(out, "perft", positions.size(), repeat, () -> {
+            long nodes = 0;
+            for (Position position : positions) {
+                nodes += PerftCommand.perft(position, perftDepth, moves);
+            }
+            return nodes;
+        });
+
+        report(out, "evaluate", positions.size(), repeat, () -> {
+            long sum = 0;
+            for (int i = 0; i < 100_000; i++) {
+                for (Position position : positions) {
+                    sum += EvaluationFunction.evaluate(position, position.sideToMove());
+                }
+            }
+            // The sum is only used to keep the evaluations from being optimised away.
+            return sum == Long.MIN_VALUE ? 0 : 100_000L * positions.size();
+        });
+
+        MCTSPlayer player = new MCTSPlayer("Bench", Color.BLACK, iterations);
+        player.setOpeningBook(null);
+        report(out, "mcts", positions.size(), repeat, () -> {
+            for (Position position : positions) {
+                player.runMCTS(position);
+            }
+            return (long) iterations * positions.size();
+        });
+    }
+
+    private interface Workload {
+        /**
+         * Runs the benchmark once.
+         *
+         * @return The number of operations performed.
+         */
+        long run();
+    }
+
+    private static void report(PrintStream out, String name, int positions, int repeat, Workload workload) {
+        workload.run();
+        long bestNanos = Long.MAX_VALUE;
+        long operations = 0;
+        long allocated = -1;
+        for (int i = 0; i < repeat; i++) {
+            long startBytes = SearchStatistics.currentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            operations = workload.run();
+            long nanos = System.nanoTime() - start;
+            if (nanos < bestNanos) {
+                bestNanos = nanos;
+                allocated = startBytes < 0 ? -1 : SearchStatistics.currentThreadAllocatedBytes() - startBytes;
+            }
+        }
+        out.println(new JsonLine("bench").put("name", name).put("positions", positions)
+                .put("operations", operations).put("ms", bestNanos / 1_000_000)
+                .put("ops_per_sec", operations * 1e9 / Math.max(bestNanos, 1))
+                .put("allocated_bytes", allocated)
+                .put("bytes_per_op", allocated < 0 ? -1 : (double) allocated / Math.max(operations, 1)));
+    }
+
+    /**
+     * Plays a seeded random game and takes the positions after {@link #BENCH_PLIES} plies.
+     */
+    static List<Position> benchPositions() {
+        Random random = new Random(SEED);
+        int[] moves = new int[Position.MAX_MOVES];
+        List<Position> positions = new ArrayList<>();
+        Position position = Position.initial();
+        for (int ply = 0; ply <= BENCH_PLIES[BENCH_PLIES.length - 1] && !position.isLost(); ply++) {
+            for (int benchPly : BENCH_PLIES) {
+                if (ply == benchPly) {
+                    positions.add(position);
+                }
+            }
+            position = position.play(moves[random.nextInt(position.generateMoves(moves))]);
+        }
+        return positions;
+    }
+}
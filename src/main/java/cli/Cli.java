@@ -0,0 +1,87 @@
+package cli;
+
+import lombok.extern.slf4j.Slf4j;
+import metrics.MetricsRegistry;
+import metrics.MetricsServer;
+import trace.Trace;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Headless entry point for batch runs on machines without a display.
+ * <p>
+ * Usage: {@code Cli <command> [--config file] [--flag value]...} with the commands tournament,
+ * selfplay-datagen, perft, bench, analyse-position and train. Results are written to standard output as
+ * JSON lines (see {@link JsonLine}), logging goes to standard error. The exit code is 0 on success,
+ * 2 for invalid arguments and 1 if the command failed. With {@code --metrics-port} the engine metrics are
+ * served in the Prometheus format while the command runs, see {@link MetricsServer}. {@code --trace} enables
+ * {@link Trace} categories; the trace is written to standard error when the command ends.
+ */
+@Slf4j
+public class Cli {
+    private static final List<Command> COMMANDS = List.of(new TournamentCommand(), new DataGenCommand(),
+            new PerftCommand(), new BenchCommand(), new AnalyseCommand(), new TrainCommand());
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Checks whether a name is one of the commands.
+     *
+     * @param name The name.
+     * @return True if {@link #run} can execute it.
+     */
+    public static boolean isCommand(String name) {
+        return COMMANDS.stream().anyMatch(command -> command.getName().equals(name));
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param args The command name followed by its flags.
+     * @param out  The stream for the results.
+     * @param err  The stream for the usage message.
+     * @return The exit code.
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        Command command = args.length == 0 ? null : COMMANDS.stream()
+                .filter(candidate -> candidate.getName().equals(args[0])).findFirst().orElse(null);
+        if (command == null) {
+            printUsage(err);
+            return 2;
+        }
+        try {
+            Options options = Options.parse(Arrays.copyOfRange(args, 1, args.length));
+            int metricsPort = options.getInt("metrics-port", -1);
+            Trace.enable(options.getString("trace", ""));
+            try (MetricsServer server = metricsPort < 0 ? null
+                    : new MetricsServer(metricsPort, MetricsRegistry.getDefault())) {
+                command.run(options, out);
+            }
+            out.flush();
+            if (Trace.isAnyEnabled()) {
+                err.print(Trace.dump());
+            }
+            return 0;
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println("usage: " + command.getName() + " " + command.getUsage());
+            return 2;
+        } catch (Exception e) {
+            log.error("{} failed", command.getName(), e);
+            Trace.dumpOnError(command.getName() + " failure");
+            return 1;
+        }
+    }
+
+    private static void printUsage(PrintStream err) {
+        err.println("usage: <command> [--config file] [--metrics-port 9400] [--trace validation,game] "
+                + "[--flag value]...");
+        for (Command command : COMMANDS) {
+            err.println("  " + command.getName() + " " + command.getUsage());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package cli;
+
+import java.io.PrintStream;
+
+/**
+ * A subcommand of the headless {@link Cli}.
+ */
+public interface Command {
+    /**
+     * Gets the name the command is invoked with.
+     *
+     * @return The name, e.g. {@code "perft"}.
+     */
+    String getName();
+
+    /**
+     * Gets a one-line description of the command and its flags for the usage message.
+     *
+     * @return The description.
+     */
+    String getUsage();
+
+    /**
+     * Runs the command.
+     *
+     * @param options The settings of the command.
+     * @param out     The stream the JSON result lines are written to.
+     * @throws Exception if the command fails; {@link IllegalArgumentException} for invalid settings.
+     */
+    void run(Options options, PrintStream out) throws Exception;
+}
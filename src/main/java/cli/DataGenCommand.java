@@ -0,0 +1,99 @@
+package cli;
+
+import agents.neural_network.NeuralNetworkPlayer;
+import gamelog.GameLogWriter;
+import neural.GameDataCollector;
+import neural.StreamingDataCollector;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collects training data from headless games, like the "collect data" mode of the GUI: every position of a
+ * finished game is recorded with {@link GameDataCollector} and all games are saved to one file.
+ * Aborted games are left out. Writes a {@code game} line per game and a {@code datagen} summary line; with
+ * {@code --log} the games are also appended to a game log. With {@code --roll-games N} the positions are
+ * streamed by a {@link StreamingDataCollector} to rolling files of N games each, named after the output file,
+ * instead of being held in memory until the end. With {@code --seed} the random choices of the agents are
+ * seeded, so the same games are played again.
+ */
+public class DataGenCommand implements Command {
+    @Override
+    public String getName() {
+        return "selfplay-datagen";
+    }
+
+    @Override
+    public String getUsage() {
+        return "--first baseline --second minimax:4 --games 200 --output training_data.ser --roll-games 0 "
+                + "--parallel 8 --max-plies 300 --timeout 600 --seed 1 --log games.mglg --model "
+                + NeuralNetworkPlayer.DEFAULT_MODEL_FILE;
+    }
+
+    @Override
+    public void run(Options options, PrintStream out) throws Exception {
+        String first = options.getString("first", "baseline");
+        String second = options.getString("second", "minimax:4");
+        int games = options.getInt("games", 200);
+        String output = options.getString("output", "training_data.ser");
+        Agents.validate(first);
+        Agents.validate(second);
+        GameRunner runner = new GameRunner(
+                new Agents(options.getString("model", NeuralNetworkPlayer.DEFAULT_MODEL_FILE)),
+                options.getInt("parallel", 8), options.getInt("max-plies", 300), options.getInt("timeout", 600));
+        if (options.getString("seed", null) != null) {
+            runner.setSeed(options.getLong("seed", 0));
+        }
+
+        int rollGames = options.getInt("roll-games", 0);
+        if (rollGames < 0) {
+            throw new IllegalArgumentException("roll-games must not be negative");
+        }
+
+        long start = System.currentTimeMillis();
+        GameDataCollector collector = new GameDataCollector();
+        StreamingDataCollector stream = rollGames > 0 ? new StreamingDataCollector(Path.of(output), rollGames) : null;
+        List<CompletableFuture<GameRunner.Result>> results = new ArrayList<>();
+        String log = options.getString("log", null);
+        try (GameLogWriter gameLog = log == null ? null : new GameLogWriter(Path.of(log)); stream) {
+            runner.setGameLog(gameLog);
+            for (int i = 0; i < games; i++) {
+                CompletableFuture<GameRunner.Result> result;
+                if (stream != null) {
+                    result = runner.play(first, second, stream::subscribe);
+                } else {
+                    GameDataCollector gameCollector = new GameDataCollector();
+                    // The collector may still be converting the last positions when the game has finished.
+                    result = runner.play(first, second, game -> game.getEvents().subscribe(gameCollector))
+                            .thenCombine(gameCollector.whenCompleted(), (finished, collected) -> {
+                                if (!finished.result().equals("aborted")) {
+                                    collector.addGames(gameCollector);
+                                }
+                                return finished;
+                            });
+                }
+                results.add(result.thenApply(finished -> {
+                    // PrintStream writes each line atomically; a monitor here would pin the virtual thread.
+                    out.println(finished.toJson());
+                    return finished;
+                }));
+            }
+            for (CompletableFuture<GameRunner.Result> result : results) {
+                result.join();
+            }
+        }
+        if (stream != null) {
+            out.println(new JsonLine("datagen").put("games", stream.getGamesWritten())
+                    .put("positions", stream.getPositionsWritten()).put("files", stream.getFilesWritten())
+                    .put("output", output).put("ms", System.currentTimeMillis() - start));
+            return;
+        }
+        collector.saveGameData(output);
+        out.println(new JsonLine("datagen").put("games", collector.getGamesCollected())
+                .put("positions", collector.getPositionsCollected()).put("output", output)
+                .put("ms", System.currentTimeMillis() - start));
+    }
+}
@@ -0,0 +1,183 @@
+package cli;
+
+import game.mills.Game;
+import game.mills.MoveLatencies;
+import game.mills.Player;
+import gamelog.GameLogWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Plays headless games for the batch commands.
+ * <p>
+ * The agents of a headless game compute their moves in the background and the game applies them as they
+ * arrive, so starting a game returns at once. The runner limits how many games run at the same time and ends
+ * games that exceed the ply limit or the time limit; those are reported as aborted. Every game gets its own
+ * seed for the random choices of its agents, drawn from the seed of the runner. If a game log is set, every game
+ * is appended to it with its seed when it ends.
+ */
+public class GameRunner {
+    private final Agents agents;
+    private final Semaphore running;
+    private final int maxPlies;
+    private final long timeoutSeconds;
+    private GameLogWriter gameLog;
+    private MoveLatencies moveLatencies;
+    private long moveTimeMillis;
+    private SplittableRandom seeds = new SplittableRandom();
+
+    /**
+     * The outcome of one game.
+     *
+     * @param first  The specification of the first player.
+     * @param second The specification of the second player.
+     * @param result {@code "1-0"}, {@code "0-1"}, {@code "draw"} or {@code "aborted"}.
+     * @param plies  The number of moves played, removals not counted separately.
+     * @param millis The duration of the game.
+     * @param game   The finished game.
+     */
+    public record Result(String first, String second, String result, int plies, long millis, Game game) {
+        /**
+         * Gets the points of the first player: 1 for a win, 0.5 for a draw or an aborted game.
+         */
+        public double firstScore() {
+            return result.equals("1-0") ? 1 : result.equals("0-1") ? 0 : 0.5;
+        }
+
+        public JsonLine toJson() {
+            return new JsonLine("game").put("first", first).put("second", second).put("result", result)
+                    .put("plies", plies).put("ms", millis);
+        }
+    }
+
+    /**
+     * Constructs a runner.
+     *
+     * @param agents         Creates the players.
+     * @param parallel       The maximum number of games running at the same time.
+     * @param maxPlies       The number of moves after which a game is aborted.
+     * @param timeoutSeconds The time after which a game is aborted.
+     */
+    public GameRunner(Agents agents, int parallel, int maxPlies, long timeoutSeconds) {
+        if (parallel < 1 || maxPlies < 1 || timeoutSeconds < 1) {
+            throw new IllegalArgumentException("parallel, max-plies and timeout must be positive");
+        }
+        this.agents = agents;
+        this.running = new Semaphore(parallel);
+        this.maxPlies = maxPlies;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Sets the log the games are appended to when they end.
+     *
+     * @param gameLog The log, or null to not log games.
+     */
+    public void setGameLog(GameLogWriter gameLog) {
+        this.gameLog = gameLog;
+    }
+
+    /**
+     * Sets the histograms the think times of the games are recorded in.
+     *
+     * @param moveLatencies The histograms, or null to not record think times.
+     */
+    public void setMoveLatencies(MoveLatencies moveLatencies) {
+        this.moveLatencies = moveLatencies;
+    }
+
+    /**
+     * Sets the time the agents have per move; an agent that exceeds it loses on time.
+     *
+     * @param moveTimeMillis The time in milliseconds, 0 for no limit.
+     */
+    public void setMoveTimeMillis(long moveTimeMillis) {
+        if (moveTimeMillis < 0) {
+            throw new IllegalArgumentException("move-time must not be negative");
+        }
+        this.moveTimeMillis = moveTimeMillis;
+    }
+
+    /**
+     * Sets the seed the seeds of the games are drawn from, so that a run can be repeated. Without it the games
+     * are seeded randomly.
+     *
+     * @param seed The seed.
+     */
+    public void setSeed(long seed) {
+        this.seeds = new SplittableRandom(seed);
+    }
+
+    /**
+     * Starts a game as soon as fewer than the allowed number of games are running. Games are seeded in the order
+     * they are started, so this is called from one thread.
+     *
+     * @param first    The specification of the first player.
+     * @param second   The specification of the second player.
+     * @param setup    Called with the game before it starts, e.g. to subscribe observers to its events; may be
+     *                 null.
+     * @return The outcome, completed when the game ends.
+     * @throws InterruptedException if interrupted while waiting for a free slot.
+     */
+    public CompletableFuture<Result> play(String first, String second, Consumer<Game> setup)
+            throws InterruptedException {
+        running.acquire();
+        try {
+            Game game = agents.newGame(first, second);
+            game.setSeed(seeds.nextLong());
+            game.setMoveLatencies(moveLatencies);
+            game.setMoveTimeMillis(moveTimeMillis);
+            AtomicInteger plies = new AtomicInteger();
+            if (setup != null) {
+                setup.accept(game);
+            }
+            game.setMoveCallback((board, player) -> {
+                // A move with a removal is reported twice, but only counts once.
+                if (!game.isMillFormed() && plies.incrementAndGet() >= maxPlies && !game.isGameOver) {
+                    game.abandon();
+                }
+            });
+            long start = System.currentTimeMillis();
+            CompletableFuture<Result> result = game.whenFinished()
+                    .orTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                    .handle((finished, timeout) -> {
+                        // Runs on the timeout thread if the game took too long; once abandon returns, no move
+                        // is applied any more, so the game can be read here.
+                        game.abandon();
+                        if (gameLog != null) {
+                            try {
+                                gameLog.write(game.toLoggedGame());
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                        return new Result(first, second, result(game), plies.get(),
+                                System.currentTimeMillis() - start, game);
+                    });
+            result.whenComplete((done, error) -> running.release());
+            game.startGame();
+            return result;
+        } catch (RuntimeException e) {
+            running.release();
+            throw e;
+        }
+    }
+
+    private static String result(Game game) {
+        if (!game.isGameOver) {
+            return "aborted";
+        }
+        Player winner = game.getWinner();
+        if (winner == null) {
+            return "draw";
+        }
+        return winner == game.getHumanPlayer1() ? "1-0" : "0-1";
+    }
+}
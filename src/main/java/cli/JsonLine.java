@@ -0,0 +1,76 @@
+package cli;
+
+/**
+ * Builds one line of JSON output. Every command writes its results as such lines to standard output
+ * (one object per line, each with a {@code "type"} field), so they can be processed by scripts;
+ * logging goes to standard error.
+ */
+public class JsonLine {
+    private final StringBuilder json = new StringBuilder("{");
+
+    /**
+     * Starts an object.
+     *
+     * @param type The value of its {@code "type"} field.
+     */
+    public JsonLine(String type) {
+        put("type", type);
+    }
+
+    public JsonLine put(String key, String value) {
+        key(key);
+        if (value == null) {
+            json.append("null");
+        } else {
+            quote(value);
+        }
+        return this;
+    }
+
+    public JsonLine put(String key, long value) {
+        key(key);
+        json.append(value);
+        return this;
+    }
+
+    public JsonLine put(String key, double value) {
+        key(key);
+        // JSON has no representation for NaN or infinity.
+        json.append(Double.isFinite(value) ? String.valueOf(value) : "null");
+        return this;
+    }
+
+    public JsonLine put(String key, boolean value) {
+        key(key);
+        json.append(value);
+        return this;
+    }
+
+    private void key(String key) {
+        if (json.length() > 1) {
+            json.append(',');
+        }
+        quote(key);
+        json.append(':');
+    }
+
+    private void quote(String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return json + "}";
+    }
+}
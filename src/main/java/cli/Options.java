@@ -0,0 +1,101 @@
+package cli;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The Options class holds the settings of a command.
+ * <p>
+ * Settings are read from {@code --key value} or {@code --key=value} flags. {@code --config file} loads a
+ * properties file first; flags given on the command line override its entries.
+ */
+public class Options {
+    private final Properties values = new Properties();
+
+    /**
+     * Parses the flags of a command.
+     *
+     * @param args The arguments after the command name.
+     * @return The options.
+     * @throws IOException              if the config file cannot be read.
+     * @throws IllegalArgumentException if an argument is not a flag or a flag has no value.
+     */
+    public static Options parse(String[] args) throws IOException {
+        Properties flags = new Properties();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--") || arg.length() == 2) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            if (equals >= 0) {
+                flags.setProperty(arg.substring(2, equals), arg.substring(equals + 1));
+            } else if (i + 1 < args.length) {
+                flags.setProperty(arg.substring(2), args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+        }
+        Options options = new Options();
+        String config = flags.getProperty("config");
+        if (config != null) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(config))) {
+                options.values.load(reader);
+            }
+        }
+        options.values.putAll(flags);
+        return options;
+    }
+
+    /**
+     * Gets a setting as text.
+     *
+     * @param key          The name of the setting.
+     * @param defaultValue The value to use if the setting is missing, may be null.
+     * @return The trimmed value, or the default.
+     */
+    public String getString(String key, String defaultValue) {
+        String value = values.getProperty(key, defaultValue);
+        return value == null ? null : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = values.getProperty(key);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + key + " must be a number: " + value);
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = values.getProperty(key);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + key + " must be a number: " + value);
+        }
+    }
+
+    /**
+     * Gets a comma-separated list.
+     *
+     * @param key          The name of the setting.
+     * @param defaultValue The list to use if the setting is missing, also comma-separated.
+     * @return The non-empty entries.
+     */
+    public List<String> getList(String key, String defaultValue) {
+        List<String> list = new ArrayList<>();
+        for (String entry : getString(key, defaultValue).split(",")) {
+            if (!entry.isBlank()) {
+                list.add(entry.trim());
+            }
+        }
+        return list;
+    }
+}
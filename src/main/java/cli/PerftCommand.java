@@ -0,0 +1,59 @@
+package cli;
+
+import game.mills.Position;
+
+import java.io.PrintStream;
+
+/**
+ * Counts the leaf positions of the move generator's tree up to a depth, for checking and timing move generation.
+ * Moves that close a mill count once per possible removal. Writes a {@code perft} line per depth.
+ */
+public class PerftCommand implements Command {
+    @Override
+    public String getName() {
+        return "perft";
+    }
+
+    @Override
+    public String getUsage() {
+        return "--depth 5 --position \"000000000000000000000000 9/9 1\"";
+    }
+
+    @Override
+    public void run(Options options, PrintStream out) {
+        int depth = options.getInt("depth", 5);
+        Position position = Position.parse(options.getString("position", Position.initial().toString()));
+        int[][] moves = new int[Math.max(depth, 1)][Position.MAX_MOVES];
+        for (int d = 1; d <= depth; d++) {
+            long start = System.nanoTime();
+            long nodes = perft(position, d, moves);
+            long nanos = System.nanoTime() - start;
+            out.println(new JsonLine("perft").put("depth", d).put("nodes", nodes).put("ms", nanos / 1_000_000)
+                    .put("nps", nodes * 1e9 / Math.max(nanos, 1)));
+        }
+    }
+
+    /**
+     * Counts the positions reached after exactly {@code depth} moves, or earlier if the game is lost.
+     *
+     * @param position The start position.
+     * @param depth    The number of moves, at least 1.
+     * @param moves    A move buffer per ply.
+     * @return The number of leaves.
+     */
+    static long perft(Position position, int depth, int[][] moves) {
+        if (position.isLost()) {
+            return 0;
+        }
+        int[] buffer = moves[depth - 1];
+        int count = position.generateMoves(buffer);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            nodes += perft(position.play(buffer[i]), depth - 1, moves);
+        }
+        return nodes;
+    }
+}
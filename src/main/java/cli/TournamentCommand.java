@@ -0,0 +1,127 @@
+package cli;
+
+import agents.neural_network.NeuralNetworkPlayer;
+import game.mills.GameStatistics;
+import game.mills.MoveLatencies;
+import gamelog.GameLogWriter;
+import metrics.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Plays a round robin between agents. Every pair of agents plays the given number of games, alternating
+ * who moves first. Writes a {@code game} line per finished game, a {@code standing} line per agent and a
+ * {@code summary} line, followed by a {@code latency} line with the think time percentiles per player
+ * implementation and phase. With {@code --log} the games are also appended to a game log. With
+ * {@code --move-time} every move has a time limit in milliseconds: searches that can stop early use it up, and
+ * an agent exceeding it loses on time. With {@code --seed} the random choices of the agents are seeded, so
+ * without a move time the same games are played again.
+ */
+public class TournamentCommand implements Command {
+    @Override
+    public String getName() {
+        return "tournament";
+    }
+
+    @Override
+    public String getUsage() {
+        return "--agents baseline,minimax:3,mcts:2000 --games 10 --parallel 8 --max-plies 300 --timeout 600 "
+                + "--move-time 0 --seed 1 --log games.mglg --model " + NeuralNetworkPlayer.DEFAULT_MODEL_FILE;
+    }
+
+    @Override
+    public void run(Options options, PrintStream out) throws Exception {
+        List<String> agents = options.getList("agents", "baseline,minimax:3,mcts:2000");
+        int games = options.getInt("games", 10);
+        if (agents.size() < 2 || games < 1) {
+            throw new IllegalArgumentException("A tournament needs at least two agents and one game per pairing");
+        }
+        if (new HashSet<>(agents).size() != agents.size()) {
+            throw new IllegalArgumentException("Every agent may only be listed once");
+        }
+        agents.forEach(Agents::validate);
+        GameRunner runner = new GameRunner(
+                new Agents(options.getString("model", NeuralNetworkPlayer.DEFAULT_MODEL_FILE)),
+                options.getInt("parallel", 8), options.getInt("max-plies", 300), options.getInt("timeout", 600));
+        if (options.getString("seed", null) != null) {
+            runner.setSeed(options.getLong("seed", 0));
+        }
+        MoveLatencies latencies = new MoveLatencies();
+        runner.setMoveLatencies(latencies);
+        runner.setMoveTimeMillis(options.getInt("move-time", 0));
+
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<GameRunner.Result>> results = new ArrayList<>();
+        String log = options.getString("log", null);
+        try (GameLogWriter gameLog = log == null ? null : new GameLogWriter(Path.of(log))) {
+            runner.setGameLog(gameLog);
+            for (int a = 0; a < agents.size(); a++) {
+                for (int b = a + 1; b < agents.size(); b++) {
+                    for (int game = 0; game < games; game++) {
+                        String first = game % 2 == 0 ? agents.get(a) : agents.get(b);
+                        String second = game % 2 == 0 ? agents.get(b) : agents.get(a);
+                        results.add(runner.play(first, second, null).thenApply(result -> {
+                            // PrintStream writes each line atomically; a monitor here would pin the virtual thread.
+                            out.println(result.toJson());
+                            return result;
+                        }));
+                    }
+                }
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        }
+
+        Map<String, double[]> standings = new LinkedHashMap<>(); // games, wins, draws, losses, points
+        agents.forEach(agent -> standings.put(agent, new double[5]));
+        GameStatistics statistics = new GameStatistics();
+        long aborted = 0;
+        for (CompletableFuture<GameRunner.Result> future : results) {
+            GameRunner.Result result = future.join();
+            double score = result.firstScore();
+            addResult(standings.get(result.first()), score);
+            addResult(standings.get(result.second()), 1 - score);
+            if (result.result().equals("aborted")) {
+                aborted++;
+            } else {
+                statistics.record(result.game());
+            }
+        }
+        for (Map.Entry<String, double[]> standing : standings.entrySet()) {
+            double[] s = standing.getValue();
+            out.println(new JsonLine("standing").put("agent", standing.getKey()).put("games", (long) s[0])
+                    .put("wins", (long) s[1]).put("draws", (long) s[2]).put("losses", (long) s[3])
+                    .put("points", s[4]).put("score", s[4] / s[0]));
+        }
+        out.println(new JsonLine("summary").put("games", results.size()).put("aborted", aborted)
+                .put("first_wins", statistics.getFirstPlayerWins())
+                .put("second_wins", statistics.getSecondPlayerWins())
+                .put("draws", statistics.getDraws())
+                .put("ms", System.currentTimeMillis() - start));
+        for (MoveLatencies.Entry entry : latencies.getEntries()) {
+            LatencyHistogram histogram = entry.histogram();
+            out.println(new JsonLine("latency").put("agent", entry.agent()).put("phase", entry.phase().label())
+                    .put("moves", histogram.getCount())
+                    .put("p50_ms", millis(histogram.getValueAtPercentile(50)))
+                    .put("p99_ms", millis(histogram.getValueAtPercentile(99)))
+                    .put("p999_ms", millis(histogram.getValueAtPercentile(99.9)))
+                    .put("max_ms", millis(histogram.getMax())));
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static void addResult(double[] standing, double score) {
+        standing[0]++;
+        standing[score == 1 ? 1 : score == 0 ? 3 : 2]++;
+        standing[4] += score;
+    }
+}
@@ -0,0 +1,52 @@
+package cli;
+
+import agents.neural_network.DataLoader;
+import agents.neural_network.GNN;
+import agents.neural_network.NeuralNetworkPlayer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Trains the {@link GNN} on the board states that finished games saved, like {@code GNNTest}, and saves it
+ * for the network players. Continues from an existing model if {@code --resume} is given. Writes an
+ * {@code epoch} line per epoch with the loss and a {@code train} summary line.
+ */
+public class TrainCommand implements Command {
+    @Override
+    public String getName() {
+        return "train";
+    }
+
+    @Override
+    public String getUsage() {
+        return "--data Data --epochs 10 --output " + NeuralNetworkPlayer.DEFAULT_MODEL_FILE + " [--resume model.zip]";
+    }
+
+    @Override
+    public void run(Options options, PrintStream out) throws Exception {
+        String data = options.getString("data", "Data");
+        int epochs = options.getInt("epochs", 10);
+        String output = options.getString("output", NeuralNetworkPlayer.DEFAULT_MODEL_FILE);
+        String resume = options.getString("resume", "");
+        if (epochs < 1) {
+            throw new IllegalArgumentException("epochs must be positive");
+        }
+
+        long start = System.currentTimeMillis();
+        List<INDArray> dataSet = DataLoader.readData(data);
+        INDArray[] inputs = {dataSet.get(0), dataSet.get(1)};
+        GNN gnn = resume.isEmpty() ? new GNN() : GNN.load(new File(resume));
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            long epochStart = System.currentTimeMillis();
+            gnn.fit(inputs);
+            out.println(new JsonLine("epoch").put("epoch", epoch).put("loss", gnn.score())
+                    .put("ms", System.currentTimeMillis() - epochStart));
+        }
+        gnn.save(new File(output));
+        out.println(new JsonLine("train").put("examples", dataSet.get(0).rows()).put("epochs", epochs)
+                .put("output", output).put("ms", System.currentTimeMillis() - start));
+    }
+}
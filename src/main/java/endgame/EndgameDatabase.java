@@ -0,0 +1,304 @@
+package endgame;
+
+import game.mills.Move;
+import game.mills.Position;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The EndgameDatabase class gives access to the solved endgames written by {@link EndgameGenerator}.
+ * <p>
+ * The file starts with a header (magic, version, largest stone count and the longest distance of every class),
+ * followed by one table per class {@code (own, other)} for 3 <= own, other <= maxStones. Every table holds one
+ * 16-bit entry per index of {@link EndgameIndex} and is memory-mapped, so probing costs one lookup and the
+ * operating system only pages in the parts that are used.
+ * <p>
+ * An entry is the result for the side to move: {@link #DRAW} (0), or a win or loss flag together with the
+ * number of plies until the game ends with perfect play.
+ */
+@Slf4j
+public class EndgameDatabase {
+    /**
+     * The file the generator writes by default and {@link #getDefault()} loads.
+     */
+    public static final String DEFAULT_FILE = "endgame.db";
+    /**
+     * Returned by {@link #probe(Position)} for positions the database does not contain.
+     */
+    public static final int NOT_COVERED = -1;
+    public static final int DRAW = 0;
+    public static final int WIN = 0x4000;
+    public static final int LOSS = 0x8000;
+    /**
+     * Scores returned by {@link #score(int)} lie within +/- this value; wins are always above any heuristic score.
+     */
+    public static final int WIN_SCORE = 100_000;
+
+    static final int MIN_STONES = 3;
+    private static final int DISTANCE_MASK = 0x3FFF;
+    private static final int MAGIC = 0x4D454442; // "MEDB"
+    private static final int VERSION = 2;
+    private static final int ALIGNMENT = 8;
+
+    private static volatile EndgameDatabase defaultDatabase;
+    private static volatile boolean defaultLoaded;
+
+    @Getter
+    private final int maxStones;
+    private final MappedByteBuffer header;
+    // tables[own][other], null outside 3..maxStones; entry i is the short at byte 2 * i.
+    private final MappedByteBuffer[][] tables;
+
+    private EndgameDatabase(FileChannel channel, int maxStones, FileChannel.MapMode mode) throws IOException {
+        this.maxStones = maxStones;
+        this.header = channel.map(mode, 0, headerSize(maxStones));
+        this.tables = new MappedByteBuffer[maxStones + 1][maxStones + 1];
+        long offset = align(headerSize(maxStones));
+        for (int own = MIN_STONES; own <= maxStones; own++) {
+            for (int other = MIN_STONES; other <= maxStones; other++) {
+                long bytes = 2 * EndgameIndex.size(own, other);
+                if (bytes > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Class " + own + "v" + other + " is too large to map");
+                }
+                tables[own][other] = channel.map(mode, offset, bytes);
+                offset = align(offset + bytes);
+            }
+        }
+    }
+
+    /**
+     * Opens a database file for probing.
+     *
+     * @param file The database file.
+     * @return The database.
+     * @throws IOException if the file cannot be read or is not an endgame database.
+     */
+    public static EndgameDatabase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(12);
+            channel.read(start, 0);
+            start.flip();
+            if (start.remaining() < 12 || start.getInt() != MAGIC || start.getInt() != VERSION) {
+                throw new IOException(file + " is not an endgame database");
+            }
+            // The mappings stay valid after the channel is closed.
+            return new EndgameDatabase(channel, start.getInt(), FileChannel.MapMode.READ_ONLY);
+        }
+    }
+
+    /**
+     * Creates an empty database file in which every entry is a draw, mapped for writing.
+     *
+     * @param file      The file to create; an existing file is overwritten.
+     * @param maxStones The largest number of stones per side.
+     * @return The writable database.
+     * @throws IOException if the file cannot be written.
+     */
+    static EndgameDatabase create(Path file, int maxStones) throws IOException {
+        long size = align(headerSize(maxStones));
+        for (int own = MIN_STONES; own <= maxStones; own++) {
+            for (int other = MIN_STONES; other <= maxStones; other++) {
+                size = align(size + 2 * EndgameIndex.size(own, other));
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer start = ByteBuffer.allocate(12).putInt(MAGIC).putInt(VERSION).putInt(maxStones);
+            start.flip();
+            channel.write(start, 0);
+            // Extending the file fills it with zeros, i.e. with draws.
+            channel.write(ByteBuffer.allocate(1), size - 1);
+            return new EndgameDatabase(channel, maxStones, FileChannel.MapMode.READ_WRITE);
+        }
+    }
+
+    /**
+     * Gets the database in {@link #DEFAULT_FILE}, loading it on first use.
+     *
+     * @return The database, or null if there is no (readable) database file.
+     */
+    public static EndgameDatabase getDefault() {
+        if (!defaultLoaded) {
+            synchronized (EndgameDatabase.class) {
+                if (!defaultLoaded) {
+                    Path file = Paths.get(DEFAULT_FILE);
+                    if (Files.isRegularFile(file)) {
+                        try {
+                            defaultDatabase = open(file);
+                            log.info("Loaded endgame database with up to {} stones per side", defaultDatabase.maxStones);
+                        } catch (IOException e) {
+                            log.warn("Could not load endgame database {}", file, e);
+                        }
+                    }
+                    defaultLoaded = true;
+                }
+            }
+        }
+        return defaultDatabase;
+    }
+
+    /**
+     * Checks if a position belongs to one of the solved classes.
+     *
+     * @param position The position.
+     * @return True if all stones are placed and both sides have between 3 and {@link #getMaxStones()} stones.
+     */
+    public boolean covers(Position position) {
+        return position.inHand(0) == 0 && position.inHand(1) == 0
+                && covers(position.stoneCount(0)) && covers(position.stoneCount(1));
+    }
+
+    private boolean covers(int stones) {
+        return stones >= MIN_STONES && stones <= maxStones;
+    }
+
+    /**
+     * Looks up the result of a position for the side to move.
+     *
+     * @param position The position.
+     * @return The entry, or {@link #NOT_COVERED}.
+     */
+    public int probe(Position position) {
+        if (!covers(position)) {
+            return NOT_COVERED;
+        }
+        int side = position.sideToMove();
+        return get(position.stones(side), position.stones(1 - side));
+    }
+
+    /**
+     * Finds the best move of a covered position: the fastest win, otherwise a draw, otherwise the longest loss.
+     *
+     * @param position The position.
+     * @param moves    A buffer of at least {@link Position#MAX_MOVES} entries.
+     * @return The best packed move, or {@link game.mills.Move#NONE} if the position is not covered or lost.
+     */
+    public int bestMove(Position position, int[] moves) {
+        if (!covers(position)) {
+            return Move.NONE;
+        }
+        int count = position.generateMoves(moves);
+        int bestMove = Move.NONE;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            Position next = position.play(moves[i]);
+            int side = next.sideToMove();
+            int entry = Integer.bitCount(next.stones(side)) < MIN_STONES
+                    ? LOSS : get(next.stones(side), next.stones(1 - side));
+            int score = -score(entry);
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = moves[i];
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Gets the entry of a position in a covered class.
+     *
+     * @param own   The stone mask of the side to move.
+     * @param other The stone mask of the opponent.
+     * @return The entry.
+     */
+    int get(int own, int other) {
+        return get(Integer.bitCount(own), Integer.bitCount(other), EndgameIndex.rank(own, other));
+    }
+
+    int get(int own, int other, long index) {
+        return tables[own][other].getShort((int) (2 * index)) & 0xFFFF;
+    }
+
+    void set(int own, int other, long index, int entry) {
+        tables[own][other].putShort((int) (2 * index), (short) entry);
+    }
+
+    /**
+     * Writes all changes of a writable database back to the file.
+     */
+    void force() {
+        header.force();
+        for (MappedByteBuffer[] row : tables) {
+            for (MappedByteBuffer table : row) {
+                if (table != null) {
+                    table.force();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the longest distance to the end of the game in a class.
+     *
+     * @param own   The number of stones of the side to move.
+     * @param other The number of stones of the opponent.
+     * @return The longest distance of any decided position in the class.
+     */
+    public int getMaxDistance(int own, int other) {
+        return header.getInt(headerSlot(own, other));
+    }
+
+    void setMaxDistance(int own, int other, int distance) {
+        header.putInt(headerSlot(own, other), distance);
+    }
+
+    private int headerSlot(int own, int other) {
+        return 12 + 4 * ((own - MIN_STONES) * (maxStones - MIN_STONES + 1) + (other - MIN_STONES));
+    }
+
+    public static boolean isWin(int entry) {
+        return (entry & WIN) != 0;
+    }
+
+    public static boolean isLoss(int entry) {
+        return (entry & LOSS) != 0;
+    }
+
+    public static boolean isDraw(int entry) {
+        return entry == DRAW;
+    }
+
+    /**
+     * Gets the number of plies until the game ends with perfect play.
+     *
+     * @param entry A win or loss entry.
+     * @return The distance to the result.
+     */
+    public static int distance(int entry) {
+        return entry & DISTANCE_MASK;
+    }
+
+    /**
+     * Converts an entry to a score for the side to move: faster wins and slower losses score higher.
+     *
+     * @param entry The entry.
+     * @return The score, 0 for draws.
+     */
+    public static int score(int entry) {
+        if (isWin(entry)) {
+            return WIN_SCORE - distance(entry);
+        }
+        if (isLoss(entry)) {
+            return -WIN_SCORE + distance(entry);
+        }
+        return 0;
+    }
+
+    private static long headerSize(int maxStones) {
+        int classes = maxStones - MIN_STONES + 1;
+        return 12 + 4L * classes * classes;
+    }
+
+    private static long align(long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
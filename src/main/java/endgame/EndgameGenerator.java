@@ -0,0 +1,194 @@
+package endgame;
+
+import game.mills.Position;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.LongStream;
+
+import static endgame.EndgameDatabase.LOSS;
+import static endgame.EndgameDatabase.MIN_STONES;
+import static endgame.EndgameDatabase.WIN;
+
+/**
+ * Offline tool that solves all endgames in which every stone is placed, by parallel retrograde analysis,
+ * and writes them to an {@link EndgameDatabase}.
+ * <p>
+ * Classes are solved in order of increasing total stone count. A move without removal leads from class
+ * {@code (own, other)} to {@code (other, own)}, so these two classes are solved together; a removal leads to
+ * the already solved class {@code (other - 1, own)}, or ends the game if only two stones are left.
+ * <p>
+ * Pass 0 marks the positions in which the side to move is blocked as lost. Pass n then decides exactly the
+ * positions whose result is n plies away: a win if the nearest lost successor is n - 1 plies from the end,
+ * a loss if all successors are won and the slowest of them needs n - 1 plies. Within a pass only entries of
+ * earlier passes are read, so the positions of a class can be processed in parallel. Positions still open
+ * once no pass can decide anything more are draws.
+ * <p>
+ * Usage: {@code EndgameGenerator [file] [maxStones]}, by default {@value EndgameDatabase#DEFAULT_FILE} with
+ * up to {@value #DEFAULT_MAX_STONES} stones per side.
+ */
+@Slf4j
+public class EndgameGenerator {
+    private static final int DEFAULT_MAX_STONES = 4;
+
+    private final EndgameDatabase database;
+    private final ThreadLocal<int[]> moveBuffers = ThreadLocal.withInitial(() -> new int[Position.MAX_MOVES]);
+
+    /**
+     * Constructs a generator that fills a writable database.
+     *
+     * @param database The database, with all entries still draws.
+     */
+    EndgameGenerator(EndgameDatabase database) {
+        this.database = database;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : EndgameDatabase.DEFAULT_FILE);
+        int maxStones = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_STONES;
+        if (maxStones < MIN_STONES || maxStones > 9) {
+            throw new IllegalArgumentException("maxStones must be between 3 and 9");
+        }
+        long start = System.currentTimeMillis();
+        new EndgameGenerator(EndgameDatabase.create(file, maxStones)).generate();
+        log.info("Wrote {} in {} s", file, (System.currentTimeMillis() - start) / 1000);
+    }
+
+    /**
+     * Solves all classes of the database and writes them to its file.
+     */
+    void generate() {
+        int maxStones = database.getMaxStones();
+        for (int total = 2 * MIN_STONES; total <= 2 * maxStones; total++) {
+            for (int own = MIN_STONES; 2 * own <= total; own++) {
+                int other = total - own;
+                if (other <= maxStones) {
+                    solve(own, other);
+                }
+            }
+        }
+        database.force();
+    }
+
+    /**
+     * Solves the classes {@code (a, b)} and {@code (b, a)} together.
+     */
+    private void solve(int a, int b) {
+        long start = System.currentTimeMillis();
+        int[][] classes = a == b ? new int[][]{{a, b}} : new int[][]{{a, b}, {b, a}};
+        int[] maxDistance = new int[classes.length];
+
+        // Results in the classes reached by removals can be up to their longest distance away.
+        int dependencyDistance = 0;
+        for (int[] c : classes) {
+            if (c[1] - 1 >= MIN_STONES) {
+                dependencyDistance = Math.max(dependencyDistance, database.getMaxDistance(c[1] - 1, c[0]));
+            }
+        }
+
+        for (int[] c : classes) {
+            int own = c[0];
+            int other = c[1];
+            LongStream.range(0, EndgameIndex.size(own, other)).parallel().forEach(index -> {
+                if (toPosition(own, other, index).isLost()) {
+                    database.set(own, other, index, LOSS);
+                }
+            });
+        }
+
+        for (int pass = 1; ; pass++) {
+            final int n = pass;
+            long decided = 0;
+            for (int i = 0; i < classes.length; i++) {
+                int own = classes[i][0];
+                int other = classes[i][1];
+                long count = LongStream.range(0, EndgameIndex.size(own, other)).parallel()
+                        .filter(index -> decide(own, other, index, n))
+                        .count();
+                if (count > 0) {
+                    maxDistance[i] = n;
+                }
+                decided += count;
+            }
+            if (decided == 0 && pass > dependencyDistance) {
+                break;
+            }
+        }
+
+        for (int i = 0; i < classes.length; i++) {
+            database.setMaxDistance(classes[i][0], classes[i][1], maxDistance[i]);
+            logClass(classes[i][0], classes[i][1], maxDistance[i]);
+        }
+        log.info("Solved {}v{} in {} ms", a, b, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Tries to decide an open position in the given pass.
+     *
+     * @return True if the position was decided with distance {@code pass}.
+     */
+    private boolean decide(int own, int other, long index, int pass) {
+        if (database.get(own, other, index) != EndgameDatabase.DRAW) {
+            return false;
+        }
+        Position position = toPosition(own, other, index);
+        int[] moves = moveBuffers.get();
+        int count = position.generateMoves(moves);
+        int total = own + other;
+        int nearestLoss = Integer.MAX_VALUE;
+        int slowestWin = -1;
+        boolean allWon = true;
+        for (int i = 0; i < count; i++) {
+            Position next = position.play(moves[i]);
+            int nextOwn = next.stones(1);
+            int nextOther = next.stones(0);
+            int nextCount = Integer.bitCount(nextOwn);
+            int entry;
+            if (nextCount < MIN_STONES) {
+                entry = LOSS;
+            } else {
+                entry = database.get(nextOwn, nextOther);
+                // Entries of the classes being solved count only once their pass is over.
+                if (nextCount + own == total && EndgameDatabase.distance(entry) >= pass) {
+                    entry = EndgameDatabase.DRAW;
+                }
+            }
+            if (EndgameDatabase.isLoss(entry)) {
+                nearestLoss = Math.min(nearestLoss, EndgameDatabase.distance(entry));
+            } else if (EndgameDatabase.isWin(entry)) {
+                slowestWin = Math.max(slowestWin, EndgameDatabase.distance(entry));
+            } else {
+                allWon = false;
+            }
+        }
+        if (nearestLoss != Integer.MAX_VALUE) {
+            if (nearestLoss == pass - 1) {
+                database.set(own, other, index, WIN | pass);
+                return true;
+            }
+            return false;
+        }
+        if (allWon && slowestWin == pass - 1) {
+            database.set(own, other, index, LOSS | pass);
+            return true;
+        }
+        return false;
+    }
+
+    private static Position toPosition(int own, int other, long index) {
+        long masks = EndgameIndex.unrank(own, other, index);
+        return new Position((int) (masks & 0xFFFFFF), (int) (masks >>> 24), 0, 0, 0);
+    }
+
+    private void logClass(int own, int other, int maxDistance) {
+        long size = EndgameIndex.size(own, other);
+        long wins = LongStream.range(0, size).parallel()
+                .filter(index -> EndgameDatabase.isWin(database.get(own, other, index))).count();
+        long losses = LongStream.range(0, size).parallel()
+                .filter(index -> EndgameDatabase.isLoss(database.get(own, other, index))).count();
+        log.info("{}v{}: {} positions, {} wins, {} losses, {} draws, longest result {} plies",
+                own, other, size, wins, losses, size - wins - losses, maxDistance);
+    }
+}
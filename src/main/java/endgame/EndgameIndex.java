@@ -0,0 +1,234 @@
+package endgame;
+
+import game.mills.Position;
+import game.mills.Symmetry;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The EndgameIndex class maps the positions of one endgame class to dense indices and back.
+ * <p>
+ * A class is the set of positions in which all stones are placed, the side to move has {@code own} stones
+ * and the opponent {@code other} stones. A position is identified by the two stone masks of the side to move
+ * and the opponent.
+ * <p>
+ * The index is reduced by the 16 board {@link Symmetry symmetries}: the own stones are first mapped to the
+ * representative of their orbit (the smallest image mask), the opponent stones are mapped along, and the index
+ * combines the number of the representative with the combinatorial (colex) rank of the opponent stones among the
+ * points that are still free. If the representative is symmetric itself, the smallest rank over its stabilising
+ * symmetries is taken, so all 16 images of a position share one index. This makes the tables about 16 times
+ * smaller than a plain ranking; only the few positions with a symmetric own stone set keep some duplicates.
+ * <p>
+ * The orbit tables of a stone count and the unranking tables of the opponent stones are built on first use. Ranking and unranking only use table lookups and
+ * bit operations and never allocate.
+ */
+public final class EndgameIndex {
+    private static final int FULL_BOARD = (1 << Position.POINTS) - 1;
+    // BINOMIAL[n][k] = n choose k for 0 <= n, k <= 24.
+    private static final int[][] BINOMIAL = new int[Position.POINTS + 1][Position.POINTS + 1];
+
+    static {
+        for (int n = 0; n <= Position.POINTS; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+    }
+
+    // Orbit tables per own stone count, built on first use.
+    private static final AtomicReferenceArray<Orbits> ORBITS = new AtomicReferenceArray<>(Position.POINTS + 1);
+
+    /**
+     * The orbits of all masks with a given number of stones under the board symmetries.
+     */
+    private static final class Orbits {
+        // For every mask (by colex rank): the number of its representative and the symmetry mapping it there.
+        final int[] representative;
+        final byte[] symmetry;
+        // For every representative: its mask and the set of symmetries that leave it unchanged (bit 0 = identity).
+        final int[] masks;
+        final short[] stabilizers;
+
+        Orbits(int stones) {
+            int combinations = BINOMIAL[Position.POINTS][stones];
+            representative = new int[combinations];
+            symmetry = new byte[combinations];
+            int count = 0;
+            for (int rank = 0; rank < combinations; rank++) {
+                int mask = unrankMask(Position.POINTS, stones, rank);
+                int smallest = mask;
+                for (int sym = 1; sym < Symmetry.COUNT; sym++) {
+                    int image = Symmetry.apply(sym, mask);
+                    if (image < smallest) {
+                        smallest = image;
+                        symmetry[rank] = (byte) sym;
+                    }
+                }
+                // Until all representatives are numbered, hold the rank of the representative.
+                representative[rank] = rankMask(smallest);
+                if (smallest == mask) {
+                    count++;
+                }
+            }
+            masks = new int[count];
+            stabilizers = new short[count];
+            int[] number = new int[combinations];
+            count = 0;
+            for (int rank = 0; rank < combinations; rank++) {
+                if (representative[rank] == rank) {
+                    int mask = unrankMask(Position.POINTS, stones, rank);
+                    int stabilizer = 0;
+                    for (int sym = 0; sym < Symmetry.COUNT; sym++) {
+                        if (Symmetry.apply(sym, mask) == mask) {
+                            stabilizer |= 1 << sym;
+                        }
+                    }
+                    number[rank] = count;
+                    masks[count] = mask;
+                    stabilizers[count++] = (short) stabilizer;
+                }
+            }
+            for (int rank = 0; rank < combinations; rank++) {
+                representative[rank] = number[representative[rank]];
+            }
+        }
+    }
+
+    // COMBINATIONS[points * 25 + bits][rank]: the mask with the given colex rank, built on first use.
+    private static final AtomicReferenceArray<int[]> COMBINATIONS =
+            new AtomicReferenceArray<>((Position.POINTS + 1) * (Position.POINTS + 1));
+
+    private EndgameIndex() {
+    }
+
+    private static int[] combinations(int points, int bits) {
+        int slot = points * (Position.POINTS + 1) + bits;
+        int[] masks = COMBINATIONS.get(slot);
+        if (masks == null) {
+            masks = new int[BINOMIAL[points][bits]];
+            for (int rank = 0; rank < masks.length; rank++) {
+                masks[rank] = unrankMask(points, bits, rank);
+            }
+            COMBINATIONS.compareAndSet(slot, null, masks);
+            masks = COMBINATIONS.get(slot);
+        }
+        return masks;
+    }
+
+    private static Orbits orbits(int stones) {
+        Orbits orbits = ORBITS.get(stones);
+        if (orbits == null) {
+            // Building twice in a race is harmless, both results are equal.
+            ORBITS.compareAndSet(stones, null, new Orbits(stones));
+            orbits = ORBITS.get(stones);
+        }
+        return orbits;
+    }
+
+    /**
+     * Gets n choose k.
+     *
+     * @param n The number of elements, at most 24.
+     * @param k The number of chosen elements.
+     * @return The binomial coefficient, 0 if k > n.
+     */
+    public static int binomial(int n, int k) {
+        return k < 0 || k > n ? 0 : BINOMIAL[n][k];
+    }
+
+    /**
+     * Gets the number of positions in a class.
+     *
+     * @param own   The number of stones of the side to move.
+     * @param other The number of stones of the opponent.
+     * @return The number of indices of the class.
+     */
+    public static long size(int own, int other) {
+        return (long) orbits(own).masks.length * binomial(Position.POINTS - own, other);
+    }
+
+    /**
+     * Computes the index of a position within its class; symmetric positions get the same index.
+     *
+     * @param own   The stone mask of the side to move.
+     * @param other The stone mask of the opponent, disjoint from {@code own}.
+     * @return The index, between 0 and {@link #size(int, int)} - 1.
+     */
+    public static long rank(int own, int other) {
+        int ownCount = Integer.bitCount(own);
+        Orbits orbits = orbits(ownCount);
+        int ownRank = rankMask(own);
+        int representative = orbits.representative[ownRank];
+        int ownImage = orbits.masks[representative];
+        int otherImage = Symmetry.apply(orbits.symmetry[ownRank], other);
+        int otherRank = rankMask(compress(otherImage, ownImage));
+        for (int rest = orbits.stabilizers[representative] & 0xFFFE; rest != 0; rest &= rest - 1) {
+            int sym = Integer.numberOfTrailingZeros(rest);
+            otherRank = Math.min(otherRank, rankMask(compress(Symmetry.apply(sym, otherImage), ownImage)));
+        }
+        return (long) representative * binomial(Position.POINTS - ownCount, Integer.bitCount(other)) + otherRank;
+    }
+
+    /**
+     * Restores a position from its index within a class. The own stones of the result are always the
+     * representative of their orbit.
+     *
+     * @param own   The number of stones of the side to move.
+     * @param other The number of stones of the opponent.
+     * @param index The index.
+     * @return The opponent mask shifted left by 24 bits, or'ed with the own mask (the layout of {@link Position#key()}).
+     */
+    public static long unrank(int own, int other, long index) {
+        int otherCombinations = binomial(Position.POINTS - own, other);
+        int ownMask = orbits(own).masks[(int) (index / otherCombinations)];
+        int otherMask = expand(combinations(Position.POINTS - own, other)[(int) (index % otherCombinations)], ownMask);
+        return ((long) otherMask << 24) | ownMask;
+    }
+
+    /**
+     * Colex rank of a mask among all masks with the same number of bits: the sum of C(p_i, i + 1)
+     * over its set bits p_0 < p_1 < ...
+     */
+    static int rankMask(int mask) {
+        int rank = 0;
+        int i = 1;
+        for (int rest = mask; rest != 0; rest &= rest - 1) {
+            rank += BINOMIAL[Integer.numberOfTrailingZeros(rest)][i++];
+        }
+        return rank;
+    }
+
+    /**
+     * Inverse of {@link #rankMask(int)} for masks within the lowest {@code points} bits: picks the highest bit
+     * first, each time the largest p with C(p, k) <= rank.
+     */
+    static int unrankMask(int points, int bits, int rank) {
+        int mask = 0;
+        int p = points - 1;
+        for (int k = bits; k > 0; k--) {
+            while (BINOMIAL[p][k] > rank) {
+                p--;
+            }
+            rank -= BINOMIAL[p][k];
+            mask |= 1 << p;
+            p--;
+        }
+        return mask;
+    }
+
+    /**
+     * Renumbers the bits of a mask so that only the points outside {@code occupied} are counted.
+     */
+    static int compress(int mask, int occupied) {
+        // Integer.compress is a single PEXT instruction where the CPU supports it.
+        return Integer.compress(mask, ~occupied & FULL_BOARD);
+    }
+
+    /**
+     * Inverse of {@link #compress(int, int)}: maps the i-th free point back to its node.
+     */
+    static int expand(int mask, int occupied) {
+        return Integer.expand(mask, ~occupied & FULL_BOARD);
+    }
+}
@@ -0,0 +1,67 @@
+package endgame;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the speed of {@link EndgameIndex#rank(int, int)} and {@link EndgameIndex#unrank(int, int, long)},
+ * which run for every position and successor during table generation, and checks that they do not allocate.
+ * <p>
+ * Usage: {@code EndgameIndexBenchmark [own other]...}, by default the classes 3v3, 4v4 and 5v5.
+ * Every class is walked twice, the first walk is a warm-up.
+ */
+public class EndgameIndexBenchmark {
+    private static final long MAX_INDICES = 20_000_000L;
+
+    public static void main(String[] args) {
+        int[][] classes = {{3, 3}, {4, 4}, {5, 5}};
+        if (args.length >= 2) {
+            classes = new int[args.length / 2][];
+            for (int i = 0; i < classes.length; i++) {
+                classes[i] = new int[]{Integer.parseInt(args[2 * i]), Integer.parseInt(args[2 * i + 1])};
+            }
+        }
+        for (int[] c : classes) {
+            run(c[0], c[1], false);
+            run(c[0], c[1], true);
+        }
+    }
+
+    private static void run(int own, int other, boolean report) {
+        long size = EndgameIndex.size(own, other);
+        long count = Math.min(size, MAX_INDICES);
+        long step = size / count;
+        long allocatedBefore = allocatedBytes();
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (long index = 0, i = 0; i < count; i++, index += step) {
+            checksum += EndgameIndex.unrank(own, other, index);
+        }
+        long unrankNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (long index = 0, i = 0; i < count; i++, index += step) {
+            long masks = EndgameIndex.unrank(own, other, index);
+            checksum += EndgameIndex.rank((int) (masks & 0xFFFFFF), (int) (masks >>> 24));
+        }
+        long roundTripNanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        if (report) {
+            double unrank = (double) unrankNanos / count;
+            double rank = (double) (roundTripNanos - unrankNanos) / count;
+            System.out.printf("%dv%d: %d indices (%.1fx smaller than unreduced), unrank %.1f ns, rank %.1f ns, "
+                            + "%d bytes allocated, checksum %d%n",
+                    own, other, size, (double) EndgameIndex.binomial(24, own)
+                            * EndgameIndex.binomial(24 - own, other) / size,
+                    unrank, rank, allocated, checksum);
+        }
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
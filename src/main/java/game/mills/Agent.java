@@ -0,0 +1,64 @@
+package game.mills;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A player whose moves are computed by the program.
+ * <p>
+ * The game asks for a move with an immutable {@link Position} and a deadline and applies the move once the
+ * returned future completes, so an agent never changes the game itself and may compute its moves on any thread.
+ * Agents with a synchronous search run it through {@link SearchExecutor#compute}; cancelling the future, because
+ * the game was abandoned or the deadline passed, interrupts the search.
+ */
+public interface Agent extends Player {
+    /**
+     * The deadline of a move without a time limit.
+     */
+    long NO_DEADLINE = Long.MAX_VALUE;
+
+    /**
+     * Requests the move for a position.
+     *
+     * @param position The position, with this agent to move.
+     * @param deadline The {@link System#nanoTime()} by which the move is due, or {@link #NO_DEADLINE}. Searches
+     *                 that can stop early return their best move so far once it has passed.
+     * @return A future of the packed move, {@link Move#NONE} if there is none.
+     */
+    CompletableFuture<Integer> requestMove(Position position, long deadline);
+
+    /**
+     * Gets the statistics of the last move computed. Only valid once the future of that move has completed.
+     *
+     * @return The statistics, or null if the agent does not record any.
+     */
+    default SearchStatistics getSearchStatistics() {
+        return null;
+    }
+
+    /**
+     * Sets the game the agent plays in; called by the game for both of its players, and again whenever one of
+     * them is set, so the players of the game are known once it starts.
+     *
+     * @param game The game.
+     */
+    void setGame(Game game);
+
+    /**
+     * Seeds the random choices of the agent, so that a game can be replayed. Agents without random choices
+     * ignore it.
+     *
+     * @param seed The seed.
+     */
+    default void setSeed(long seed) {
+    }
+
+    /**
+     * Checks whether a deadline has passed.
+     *
+     * @param deadline A deadline as passed to {@link #requestMove(Position, long)}.
+     * @return True if it has passed; never for {@link #NO_DEADLINE}.
+     */
+    static boolean isExpired(long deadline) {
+        return deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0;
+    }
+}
@@ -248,6 +248,27 @@ public class Board {
         return copy;
     }
 
+    /**
+     * Creates a board with the stones of a position, the reverse of {@link Position#of}.
+     *
+     * @param position The position.
+     * @param first    The player owning the stones of side 0.
+     * @param second   The player owning the stones of side 1.
+     * @return The new board.
+     */
+    public static Board of(Position position, Player first, Player second) {
+        Board board = new Board();
+        for (Node node : board.nodes.values()) {
+            int bit = 1 << node.getId();
+            if ((position.stones(0) & bit) != 0) {
+                node.setOccupant(first);
+            } else if ((position.stones(1) & bit) != 0) {
+                node.setOccupant(second);
+            }
+        }
+        return board;
+    }
+
     /**
      * Tests if a given stone placement will form a mill.
      *
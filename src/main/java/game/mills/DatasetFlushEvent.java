@@ -0,0 +1,25 @@
+package game.mills;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for writing collected games to disk, such as a game log flush or saving training data.
+ */
+@Name("mills.DatasetFlush")
+@Label("Dataset Flush")
+@Category({"Mills", "Data"})
+@Description("Collected games were written to a file")
+public class DatasetFlushEvent extends Event {
+    @Label("Writer")
+    public String writer;
+    @Label("Records")
+    public long records;
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
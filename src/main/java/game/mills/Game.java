@@ -1,19 +1,22 @@
 package game.mills;
 
-import agents.neural_network.BaselineAgent;
+import gamelog.LoggedGame;
+import gamelog.LoggedMove;
 import gui.MillGameUI;
 import javafx.animation.PauseTransition;
 import javafx.application.Platform;
-import javafx.concurrent.Task;
 import javafx.util.Duration;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import minimax.MinimaxAIPlayer;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
-
-import MCTS.MCTSPlayer;
+import trace.Trace;
+import trace.TraceCategory;
+import trace.TraceEvent;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
@@ -21,8 +24,18 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The NewGame class manages the game logic for Mills.
@@ -31,6 +44,16 @@ import java.util.Map;
  */
 @Slf4j
 public class Game {
+    // Time an agent gets beyond its deadline before it loses on time, for scheduling delays.
+    private static final long MOVE_TIME_GRACE_MILLIS = 250;
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+    private static final Counter MOVES = MetricsRegistry.getDefault()
+            .counter("mills_moves_total", "Moves played, a move closing a mill counts once");
+    private static final Histogram GAME_LENGTH = MetricsRegistry.getDefault().histogram("mills_game_length_moves",
+            "Moves per finished game", new double[]{20, 40, 60, 80, 100, 150, 200, 300, 500});
+    // 0.1 ms up to 26 seconds
+    private static final double[] THINK_TIME_BOUNDS = Histogram.exponentialBounds(0.0001, 4, 10);
+
     @Getter
     private final Map<INDArray, INDArray> boardStates;
     private final HashMap<String, Integer> boardStateCount; // Track occurrences of board states
@@ -39,11 +62,9 @@ public class Game {
     @Getter
     private final Board board;
     private final MoveValidator moveValidator;
-    public boolean isGameOver = false;
-    @Setter
+    public volatile boolean isGameOver = false;
     @Getter
     private Player humanPlayer1;
-    @Setter
     @Getter
     private Player humanPlayer2;
     @Getter
@@ -54,6 +75,8 @@ public class Game {
     @Setter
     private Player currentPlayer;
     private int totalMoves;
+    // Packed moves played by the first and second player in this game.
+    private final int[] moveCounts = new int[2];
     @Getter
     private int phase;
     @Setter
@@ -61,6 +84,67 @@ public class Game {
     private boolean millFormed = false;
     private MillGameUI ui;
     private boolean movingPhaseMessageDisplayed = false;
+    private volatile CompletableFuture<Integer> pendingMove;
+    /**
+     * Set when the turn passed to an agent. Its move is only requested once the move that passed the turn is
+     * complete, also with its removal when an agent plays both at once ({@link #deferAIMove}); otherwise a fast
+     * agent's answer could be applied while this thread is still updating the game.
+     */
+    private boolean aiMoveDue;
+    private boolean deferAIMove;
+    private volatile boolean abandoned = false;
+    /**
+     * Held while an agent's move or a loss on time is applied and while the game is abandoned or logged, so
+     * {@link #abandon()} only returns once no move is being applied any more. A lock rather than a monitor, as
+     * moves are applied on virtual threads.
+     */
+    private final ReentrantLock moveLock = new ReentrantLock();
+    private final CompletableFuture<Game> finished = new CompletableFuture<>();
+    /**
+     * Identifies the game in flight recordings, unique within the process.
+     */
+    @Getter
+    private final long id = NEXT_ID.incrementAndGet();
+    // The moves played so far for the game log; a removal is added to the move that closed the mill.
+    private final List<LoggedMove> moves = new ArrayList<>();
+    private final long startTime = System.currentTimeMillis();
+    private long lastMoveNanos = System.nanoTime();
+    // Statistics of the AI move being played, picked up by recordMove.
+    private SearchStatistics moveStatistics;
+    /**
+     * The search statistics of the last AI move played, null if the player does not report any.
+     */
+    @Getter
+    private volatile SearchStatistics lastSearchStatistics;
+    /**
+     * Receives the think time of every AI move if set.
+     */
+    @Setter
+    private MoveLatencies moveLatencies;
+    /**
+     * Publishes the moves, mills, removals, phase change and end of this game to observers, which consume them
+     * on their own executors; the game never waits for them.
+     */
+    @Getter
+    private final GameEventPublisher events = new GameEventPublisher();
+    // The move or removal to publish with the state after it, see publishEvents.
+    private GameEventType pendingEvent;
+    private int pendingEventMove;
+    private Player pendingEventPlayer;
+    private boolean phaseChanged;
+    private long eventSequence;
+    /**
+     * The time an agent has per move in milliseconds, 0 for no limit. Agents that can stop their search early
+     * use all of it; an agent that has not moved shortly after it loses on time.
+     */
+    @Getter
+    @Setter
+    private long moveTimeMillis;
+    /**
+     * The seed of the players, recorded in the game log; 0 if they were not seeded.
+     */
+    @Getter
+    private long seed;
 
     /**
      * Constructs a new game instance with two players.
@@ -81,40 +165,87 @@ public class Game {
         this.totalMoves = 0;
         this.boardStateCount = new HashMap<>();
 
-        if (p1 instanceof BaselineAgent) {
-            ((BaselineAgent) p1).setGame(this);
-        }
-        if (p2 instanceof BaselineAgent) {
-            ((BaselineAgent) p2).setGame(this);
-        }
-        if (p1 instanceof MinimaxAIPlayer) {
-            ((MinimaxAIPlayer) p1).setGame(this);
-        }
-        if (p2 instanceof MinimaxAIPlayer) {
-            ((MinimaxAIPlayer) p2).setGame(this);
-        }
-        if (p1 instanceof MCTSPlayer) {
-            ((MCTSPlayer) p1).setGame(this);
-        }
-        if (p2 instanceof MCTSPlayer) {
-            ((MCTSPlayer) p2).setGame(this);
-        }
+        attachAgents();
+    }
 
+    /**
+     * Hands the game to the agents among the players. Called again whenever a player is set, so that an agent
+     * created before its opponent sees both players in the end.
+     */
+    private void attachAgents() {
+        for (Player player : new Player[]{humanPlayer1, humanPlayer2}) {
+            if (player instanceof Agent agent) {
+                agent.setGame(this);
+            }
+        }
     }
 
 
+    /**
+     * Seeds the random choices of both players before the game starts. Each agent gets its own seed derived
+     * from this one, so a game between agents with a fixed search budget is replayed by the same seed.
+     *
+     * @param seed The seed, recorded in the game log.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (Player player : new Player[]{humanPlayer1, humanPlayer2}) {
+            long playerSeed = seeds.nextLong();
+            if (player instanceof Agent agent) {
+                agent.setSeed(playerSeed);
+            }
+        }
+    }
+
     /**
      * Helper method to notify the callback of game state changes.
      * This should be called after any move that changes the game state.
      */
     private void notifyMoveCallback() {
+        publishEvents();
         if (moveCallback != null) {
             moveCallback.onMove(board, currentPlayer);
+            // Completed only now, so whoever waits for the game sees the callback of the final move as well.
+            if (isGameOver) {
+                finished.complete(this);
+            }
         }
+        requestDueAIMove();
+    }
+
+    /**
+     * Publishes the events of the move, removal or game end just played, with the state after it.
+     */
+    private void publishEvents() {
+        if (events.hasSubscribers() && !events.isClosed()) {
+            Position position = toPosition();
+            if (pendingEvent != null) {
+                GameEventType type = pendingEvent == GameEventType.MOVE && millFormed ? GameEventType.MILL
+                        : pendingEvent;
+                publishEvent(type, pendingEventPlayer, pendingEventMove, position);
+            }
+            if (phaseChanged) {
+                publishEvent(GameEventType.PHASE_CHANGE, null, Move.NONE, position);
+            }
+            if (isGameOver) {
+                publishEvent(GameEventType.GAME_OVER, winner, Move.NONE, position);
+            }
+        }
+        pendingEvent = null;
+        phaseChanged = false;
+        if (isGameOver) {
+            events.close();
+        }
+    }
+
+    private void publishEvent(GameEventType type, Player player, int move, Position position) {
+        events.publish(new GameEvent(type, id, eventSequence++, player, move, position));
     }
 
     /**
      * Switches the player when the turn changes.
+     * If the next player is an AI, its move is computed in the background.
      */
     public void switchPlayer() {
         if (isGameOver) {
@@ -122,39 +253,217 @@ public class Game {
         }
         currentPlayer = (currentPlayer == humanPlayer1) ? humanPlayer2 : humanPlayer1;
 
-        if (currentPlayer instanceof BaselineAgent || currentPlayer instanceof MinimaxAIPlayer || currentPlayer instanceof MCTSPlayer) {
-            Task<Void> aiTask = new Task<Void>() {
-                @Override
-                protected Void call() {
-                    if (currentPlayer instanceof BaselineAgent) {
-                        ((BaselineAgent) currentPlayer).makeMove();
-                    } else if (currentPlayer instanceof MinimaxAIPlayer) {
-                        ((MinimaxAIPlayer) currentPlayer).makeMove(board, phase);
-                    }else if (currentPlayer instanceof MCTSPlayer) {
-                        ((MCTSPlayer) currentPlayer).makeMove(board, getOpponent(currentPlayer));
-                    }
-                    return null;
-                }
-            };
+        if (currentPlayer instanceof Agent) {
+            aiMoveDue = true;
+        } else {
+            notifyUI();
+        }
+    }
 
-            aiTask.setOnSucceeded(event -> Platform.runLater(() -> {
-                notifyUI();
-                if (ui != null) {
-                    ui.updateGameStatus("Turn: " + getCurrentPlayer().getName());
-                }
-            }));
+    /**
+     * Requests the move of the agent to move once the current move is complete, see {@link #aiMoveDue}.
+     */
+    private void requestDueAIMove() {
+        if (aiMoveDue && !deferAIMove) {
+            aiMoveDue = false;
+            if (!isGameOver && !abandoned) {
+                requestAIMove();
+            }
+        }
+    }
 
-            aiTask.setOnFailed(event -> {
-                Throwable error = aiTask.getException();
+    /**
+     * Requests the move of the current agent, which computes it on a snapshot of the game, so the search never
+     * touches the live board. The move is applied once the future completes, on the UI thread if there is one;
+     * with a move time limit, an agent that has not answered shortly after its deadline loses on time.
+     */
+    private void requestAIMove() {
+        Agent agent = (Agent) currentPlayer;
+        Position position = toPosition();
+        long start = System.nanoTime();
+        long deadline = moveTimeMillis > 0 ? start + moveTimeMillis * 1_000_000 : Agent.NO_DEADLINE;
+        CompletableFuture<Integer> request = agent.requestMove(position, deadline);
+        pendingMove = request;
+        if (moveTimeMillis > 0) {
+            request.orTimeout(moveTimeMillis + MOVE_TIME_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        // Applied asynchronously even if the agent answered at once, so playing the move never recurses into
+        // the requestAIMove of the next move.
+        request.whenCompleteAsync((move, failure) -> {
+            Throwable error = failure instanceof CompletionException ? failure.getCause() : failure;
+            if (error == null) {
+                long nanos = System.nanoTime() - start;
+                recordThinkTime(agent, MovePhase.of(position, move), nanos);
+                Trace.record(TraceEvent.AI_MOVE, move, nanos / 1000);
+                SearchStatistics statistics = agent.getSearchStatistics();
+                runOnUiThread(() -> applyAIMove(agent, move, statistics));
+            } else if (error instanceof TimeoutException) {
+                runOnUiThread(() -> loseOnTime(agent));
+            } else if (!(error instanceof CancellationException)) {
+                // Nobody else waits on the future, so failures must be logged here.
                 log.error("Error in AI Computation!", error);
-            });
+                Trace.dumpOnError("AI computation error");
+            }
+        }, SearchExecutor::execute);
+    }
 
-            new Thread(aiTask).start();
-        } else {
+    private void recordThinkTime(Player player, MovePhase phase, long nanos) {
+        MetricsRegistry.getDefault().histogram("mills_think_seconds",
+                "Time AI players take to choose a move, by player implementation and phase", THINK_TIME_BOUNDS,
+                "agent", player.getClass().getSimpleName(), "phase", phase.label()).observeNanos(nanos);
+        MoveLatencies latencies = moveLatencies;
+        if (latencies != null) {
+            latencies.record(player, phase, nanos);
+        }
+    }
+
+    /**
+     * Plays a move computed by an AI player, unless the game has moved on or was abandoned in the meantime.
+     */
+    private void applyAIMove(Player player, int move, SearchStatistics statistics) {
+        moveLock.lock();
+        try {
+            if (abandoned || isGameOver || currentPlayer != player) {
+                return;
+            }
+            if (move == Move.NONE) {
+                if (toPosition().isLost()) {
+                    // Blocked right after the last placement, which the checks after placing do not detect.
+                    gameOver(getOpponent(player));
+                    notifyMoveCallback();
+                } else {
+                    log.error("No valid move found for {}", player.getName());
+                }
+                return;
+            }
+            if (statistics != null) {
+                log.debug("{} played {}: {}", player.getName(), Move.toString(move), statistics);
+            }
+            lastSearchStatistics = statistics;
+            moveStatistics = statistics;
+            try {
+                playMove(move);
+            } catch (InvalidMove e) {
+                log.error("Move {} of {} was rejected", Move.toString(move), player.getName(), e);
+                Trace.dumpOnError("rejected AI move");
+                return;
+            } finally {
+                moveStatistics = null;
+            }
             notifyUI();
+            if (ui != null) {
+                ui.updateGameStatus("Turn: " + getCurrentPlayer().getName());
+            }
+        } finally {
+            moveLock.unlock();
+        }
+    }
+
+    /**
+     * Ends the game in favour of the opponent of an agent that missed its deadline, unless the game has moved on.
+     */
+    private void loseOnTime(Player player) {
+        moveLock.lock();
+        try {
+            if (abandoned || isGameOver || currentPlayer != player) {
+                return;
+            }
+            log.warn("{} did not move within {} ms and loses on time", player.getName(), moveTimeMillis);
+            gameOver(getOpponent(player));
+            notifyMoveCallback();
+        } finally {
+            moveLock.unlock();
         }
     }
 
+    /**
+     * Runs an action that changes the game on the thread human moves are played on: the UI thread in games with
+     * a human player. Games between agents are played off the UI thread, which only renders their latest state,
+     * see {@link MillGameUI#boardChanged(Position)}.
+     */
+    private void runOnUiThread(Runnable action) {
+        if (ui != null && !(humanPlayer1 instanceof Agent && humanPlayer2 instanceof Agent)) {
+            Platform.runLater(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Abandons the game: a running AI computation is cancelled, no further moves are applied and the event
+     * subscribers are completed. An agent move that is being applied is finished first, so the game no longer
+     * changes once this returns and may be read from any thread.
+     */
+    public void abandon() {
+        moveLock.lock();
+        try {
+            abandoned = true;
+            CompletableFuture<Integer> pending = pendingMove;
+            if (pending != null) {
+                pending.cancel(true);
+            }
+        } finally {
+            moveLock.unlock();
+        }
+        events.close();
+        finished.complete(this);
+    }
+
+    /**
+     * Gets a future that completes with this game once it is over or abandoned, which lets headless callers
+     * wait for games whose moves are computed in the background.
+     *
+     * @return The future; {@link #isGameOver} tells whether the game was finished or abandoned.
+     */
+    public CompletableFuture<Game> whenFinished() {
+        return finished;
+    }
+
+    /**
+     * Creates a compact snapshot of the current game state.
+     *
+     * @return The current position, with the first player as side 0.
+     */
+    public Position toPosition() {
+        return Position.of(board, humanPlayer1, humanPlayer2, currentPlayer);
+    }
+
+    /**
+     * Plays a complete packed move for the current player: the placement or move and, if it closes a mill,
+     * the removal of the opponent's stone.
+     *
+     * @param move The packed move, see {@link Move}.
+     * @throws InvalidMove if the move is not valid.
+     */
+    public void playMove(int move) {
+        Player player = currentPlayer;
+        deferAIMove = true;
+        try {
+            if (Move.isPlacement(move)) {
+                placePiece(Move.to(move));
+            } else {
+                makeMove(Move.from(move), Move.to(move));
+            }
+            if (millFormed && Move.hasRemoval(move)) {
+                removeOpponentStone(Move.removal(move));
+            }
+            moveCounts[player == humanPlayer1 ? 0 : 1]++;
+        } finally {
+            deferAIMove = false;
+        }
+        requestDueAIMove();
+    }
+
+    /**
+     * Gets the number of moves a player made in this game through {@link #playMove(int)}, i.e. the AI moves.
+     *
+     * @param player One of the two players.
+     * @return The number of moves.
+     */
+    public int getMoveCount(Player player) {
+        return player == humanPlayer1 ? moveCounts[0] : moveCounts[1];
+    }
+
     public Player getOpponent(Player player) {
         if (player == humanPlayer1) {
             return humanPlayer2;
@@ -172,7 +481,7 @@ public class Game {
             if (!node.isOccupied()) {
                 break;
             }
-            if (winner.equals(null)) {
+            if (winner == null) {
                 winnerState.putScalar(i, 0);
             } else if (winner.equals(humanPlayer1) && node.getOccupant().equals(humanPlayer1)) {
                 winnerState.putScalar(i, 1);
@@ -204,7 +513,9 @@ public class Game {
                 }
             }
         }
-        System.out.println(boardArray);
+        if (Trace.isEnabled(TraceCategory.GAME)) {
+            Trace.record(TraceEvent.BOARD_ENCODED, Position.of(board, humanPlayer1, humanPlayer2, currentPlayer).key());
+        }
         return boardArray;
     }
 
@@ -231,6 +542,7 @@ public class Game {
     public void placePiece(int nodeID) {
         if (moveValidator.isValidPlacement(currentPlayer, nodeID)) {
             board.placePiece(currentPlayer, nodeID);
+            recordMove(Move.place(nodeID));
             trackBoardState();
             notifyUI();
             if (board.checkMill(board.getNode(nodeID), currentPlayer)) {
@@ -259,6 +571,7 @@ public class Game {
     public void makeMove(int fromID, int toID) {
         if (moveValidator.isValidMove(currentPlayer, fromID, toID)) {
             board.movePiece(currentPlayer, fromID, toID);
+            recordMove(Move.move(fromID, toID));
             trackBoardState();
             notifyUI();
             if (board.checkMill(board.getNode(toID), currentPlayer)) {
@@ -305,6 +618,7 @@ public class Game {
             }
 
             // Switching the turn after removing the stone
+            notifyUI();
             switchPlayer();
             if (ui != null) {
                 ui.updateGameStatus("Turn: " + currentPlayer.getName());
@@ -323,6 +637,7 @@ public class Game {
      * @param opponent the player whose stone is being removed.
      */
     public void removeStone(Node node, Player opponent) {
+        recordRemoval(node.getId());
         node.setOccupant(null);
         opponent.decrementStonesOnBoard();
         millFormed = false; // Reset flag after removal
@@ -342,6 +657,7 @@ public class Game {
             removeStone(node, node.getOccupant());
             notifyUI();
             switchPlayer();
+            notifyMoveCallback();
         } else {
             throw new InvalidMove("Removal is invalid!");
         }
@@ -356,9 +672,12 @@ public class Game {
         return phase == 1;
     }
 
+    /**
+     * Hands the current position to the UI, which shows the latest one at its next frame.
+     */
     public void notifyUI() {
         if (ui != null) {
-            ui.refreshBoard();
+            ui.boardChanged(toPosition());
         }
     }
 
@@ -380,6 +699,7 @@ public class Game {
      */
     private void checkPhase() {
         if (humanPlayer1.getStonesToPlace() == 0 && humanPlayer2.getStonesToPlace() == 0) {
+            phaseChanged |= phase != 2;
             phase = 2;
             if (!movingPhaseMessageDisplayed) {
                 if (ui != null) {
@@ -430,12 +750,92 @@ public class Game {
         if (!isGameOver) {
             isGameOver = true;
             this.winner = winner;
+            String result = winner == null ? "draw" : winner == humanPlayer1 ? "first" : "second";
+            MetricsRegistry.getDefault().counter("mills_games_total", "Finished games by result", "result", result)
+                    .increment();
+            GAME_LENGTH.observe(moves.size());
+            GameEndedEvent event = new GameEndedEvent();
+            if (event.shouldCommit()) {
+                event.gameId = id;
+                event.winner = winner != null ? winner.getName() : null;
+                event.moves = moves.size();
+                event.commit();
+            }
             log.info(winner != null ? "Game Over! {0} wins!" : "Game Over! It's a draw!", winner != null ? winner.getName() : "");
             if (ui != null) {
                 recordBoardState();
                 saveBoardStates();
                 ui.displayGameOverMessage(winner); // Display the game-over message
             }
+            if (moveCallback == null) {
+                finished.complete(this);
+            }
+        }
+    }
+
+    private void recordMove(int move) {
+        SearchStatistics statistics = moveStatistics;
+        int nodes = statistics == null ? 0 : (int) Math.min(Integer.MAX_VALUE, statistics.getNodes());
+        moves.add(new LoggedMove(move, elapsedMicros(), nodes, statistics == null ? 0 : statistics.getScore()));
+        MOVES.increment();
+        pendingEvent = GameEventType.MOVE;
+        pendingEventMove = move;
+        pendingEventPlayer = currentPlayer;
+        moveApplied(move);
+    }
+
+    private void recordRemoval(int nodeID) {
+        if (!moves.isEmpty()) {
+            LoggedMove last = moves.get(moves.size() - 1);
+            int move = Move.withRemoval(last.move(), nodeID);
+            int micros = (int) Math.min(Integer.MAX_VALUE, (long) last.micros() + elapsedMicros());
+            moves.set(moves.size() - 1, new LoggedMove(move, micros, last.nodes(), last.score()));
+            moveApplied(move);
+            pendingEvent = GameEventType.REMOVAL;
+            pendingEventMove = move;
+            pendingEventPlayer = currentPlayer;
+        }
+    }
+
+    private void moveApplied(int move) {
+        MoveAppliedEvent event = new MoveAppliedEvent();
+        if (event.shouldCommit()) {
+            event.gameId = id;
+            event.player = currentPlayer.getName();
+            event.move = Move.toString(move);
+            event.ply = moves.size();
+            event.commit();
+        }
+    }
+
+    private int elapsedMicros() {
+        long now = System.nanoTime();
+        long micros = (now - lastMoveNanos) / 1000;
+        lastMoveNanos = now;
+        return (int) Math.min(Integer.MAX_VALUE, micros);
+    }
+
+    /**
+     * Creates the game log entry of this game: the players, the result so far and all moves played. Never sees
+     * an agent move half applied.
+     *
+     * @return The game as a log entry.
+     */
+    public LoggedGame toLoggedGame() {
+        moveLock.lock();
+        try {
+            int result;
+            if (!isGameOver) {
+                result = LoggedGame.UNFINISHED;
+            } else if (winner == null) {
+                result = LoggedGame.DRAW;
+            } else {
+                result = winner == humanPlayer1 ? LoggedGame.FIRST_WINS : LoggedGame.SECOND_WINS;
+            }
+            return new LoggedGame(startTime, seed, humanPlayer1.getName(), humanPlayer2.getName(), result,
+                    Position.initial().key(), moves);
+        } finally {
+            moveLock.unlock();
         }
     }
 
@@ -449,39 +849,43 @@ public class Game {
         this.ui = ui;
     }
 
-    public void setSecondPlayer(Player player) {
+    public void setHumanPlayer1(Player player) {
+        this.humanPlayer1 = player;
+        attachAgents();
+    }
+
+    public void setHumanPlayer2(Player player) {
         this.humanPlayer2 = player;
+        attachAgents();
     }
 
-    // In Game.java
+    public void setSecondPlayer(Player player) {
+        setHumanPlayer2(player);
+    }
 
+    /**
+     * Starts the game; if the first player is an AI, it makes its first move after a short delay.
+     */
     public void startGame() {
         boardStateCount.clear();
-        if (currentPlayer instanceof BaselineAgent) {
-            log.info("Starting game with Baseline Agent");
-            // Add a delay before the bot makes its move
-            PauseTransition pause = new PauseTransition(Duration.seconds(0.1)); // 0.1-second delay
-            pause.setOnFinished(event -> {
-                ((BaselineAgent) currentPlayer).makeMove();
-
-                // Update the UI after the bot has made its move
-                notifyUI();
-                if (ui != null) {
-                    ui.updateGameStatus("Turn: " + getCurrentPlayer().getName());
-                }
-            });
-            pause.play();
-        } else if (currentPlayer instanceof MinimaxAIPlayer) {
-            log.info("Starting game with Minimax Agent");
+        GameStartedEvent started = new GameStartedEvent();
+        if (started.shouldCommit()) {
+            started.gameId = id;
+            started.first = humanPlayer1.getName();
+            started.second = humanPlayer2.getName();
+            started.commit();
+        }
+        if (!(currentPlayer instanceof Agent)) {
+            return;
+        }
+        log.info("Starting game with {}", currentPlayer.getName());
+        if (ui != null) {
+            // Add a delay before the bot makes its move so the board is shown first
             PauseTransition pause = new PauseTransition(Duration.seconds(0.1)); // 0.1-second delay
-            pause.setOnFinished(event -> {
-                ((MinimaxAIPlayer) currentPlayer).makeMove(board, phase);
-                notifyUI();
-                if (ui != null) {
-                    ui.updateGameStatus("Turn: " + getCurrentPlayer().getName());
-                }
-            });
+            pause.setOnFinished(event -> requestAIMove());
             pause.play();
+        } else {
+            requestAIMove();
         }
     }
 
@@ -0,0 +1,24 @@
+package game.mills;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for the end of a game.
+ */
+@Name("mills.GameEnded")
+@Label("Game Ended")
+@Category({"Mills", "Game"})
+@Description("A game ended with a win or a draw")
+class GameEndedEvent extends Event {
+    @Label("Game Id")
+    long gameId;
+    @Label("Winner")
+    @Description("The name of the winner, null for a draw")
+    String winner;
+    @Label("Moves")
+    int moves;
+}
@@ -0,0 +1,18 @@
+package game.mills;
+
+/**
+ * Something that happened in a game, published by the game's {@link GameEventPublisher}. The state is an
+ * immutable snapshot taken when the event happened, so observers may process events on any thread while the
+ * game goes on.
+ *
+ * @param type     What happened.
+ * @param gameId   The {@link Game#getId() id} of the game.
+ * @param sequence The number of the event within its game, starting at 0; a gap means events were dropped.
+ * @param player   The player who moved, removed or won; null for a phase change or a draw.
+ * @param move     The packed move of a move, mill or removal, including the removal for the latter;
+ *                 {@link Move#NONE} for other events.
+ * @param position The position after the event.
+ */
+public record GameEvent(GameEventType type, long gameId, long sequence, Player player, int move,
+                        Position position) {
+}
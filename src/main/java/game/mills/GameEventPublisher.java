@@ -0,0 +1,95 @@
+package game.mills;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Publishes the {@link GameEvent}s of one game.
+ * <p>
+ * Every subscriber gets a bounded buffer of its own and consumes the events on its own executor, so a slow
+ * observer neither waits for nor delays the others. Publishing never blocks the game: an event that does not fit
+ * into a subscriber's buffer is dropped for that subscriber and counted in
+ * {@code mills_game_events_dropped_total}; subscribers can detect the gap in the event sequence numbers.
+ * Subscribers are completed when the game ends or is abandoned.
+ */
+public class GameEventPublisher implements Flow.Publisher<GameEvent> {
+    /**
+     * Events buffered per subscriber by default, enough for a whole game of usual length.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Counter DROPPED = MetricsRegistry.getDefault().counter("mills_game_events_dropped_total",
+            "Game events dropped because an observer's buffer was full");
+
+    private final List<SubmissionPublisher<GameEvent>> publishers = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Subscribes with the default buffer size, consuming the events on virtual threads.
+     *
+     * @param subscriber The subscriber.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super GameEvent> subscriber) {
+        subscribe(subscriber, DEFAULT_EXECUTOR, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Subscribes with an executor and buffer of its own.
+     *
+     * @param subscriber The subscriber.
+     * @param executor   The executor the subscriber's methods are called on, e.g. {@code Platform::runLater}.
+     * @param bufferSize The number of events buffered for the subscriber, rounded up to a power of two.
+     */
+    public void subscribe(Flow.Subscriber<? super GameEvent> subscriber, Executor executor, int bufferSize) {
+        SubmissionPublisher<GameEvent> publisher = new SubmissionPublisher<>(executor, bufferSize);
+        publisher.subscribe(subscriber);
+        synchronized (this) {
+            publishers.add(publisher);
+            if (closed) {
+                publisher.close();
+            }
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !publishers.isEmpty();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Hands an event to all subscribers without waiting for any of them.
+     *
+     * @param event The event; ignored once the publisher is closed.
+     */
+    public synchronized void publish(GameEvent event) {
+        if (closed) {
+            return;
+        }
+        for (SubmissionPublisher<GameEvent> publisher : publishers) {
+            publisher.offer(event, (subscriber, dropped) -> {
+                DROPPED.increment();
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Completes all subscribers once they have consumed the events buffered for them.
+     */
+    public synchronized void close() {
+        closed = true;
+        publishers.forEach(SubmissionPublisher::close);
+    }
+}
@@ -0,0 +1,27 @@
+package game.mills;
+
+/**
+ * The kinds of {@link GameEvent}s.
+ */
+public enum GameEventType {
+    /**
+     * A stone was placed or moved without closing a mill.
+     */
+    MOVE,
+    /**
+     * A stone was placed or moved and closed a mill; the same player removes a stone next.
+     */
+    MILL,
+    /**
+     * An opponent's stone was removed after a mill.
+     */
+    REMOVAL,
+    /**
+     * All stones are placed and the moving phase begins.
+     */
+    PHASE_CHANGE,
+    /**
+     * The game ended; no events follow.
+     */
+    GAME_OVER
+}
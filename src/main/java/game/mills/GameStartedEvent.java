@@ -0,0 +1,23 @@
+package game.mills;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for the start of a game.
+ */
+@Name("mills.GameStarted")
+@Label("Game Started")
+@Category({"Mills", "Game"})
+@Description("A game was started")
+class GameStartedEvent extends Event {
+    @Label("Game Id")
+    long gameId;
+    @Label("First Player")
+    String first;
+    @Label("Second Player")
+    String second;
+}
@@ -0,0 +1,83 @@
+package game.mills;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The GameStatistics class aggregates the results of a series of games.
+ * <p>
+ * Games only keep their own counters; finished games are added here with {@link #record(Game)}. The totals are
+ * {@link LongAdder}s, so any number of games running on different threads can report to one instance without
+ * locking, and nothing of the games themselves is retained.
+ */
+public class GameStatistics {
+    private final LongAdder games = new LongAdder();
+    private final LongAdder firstPlayerWins = new LongAdder();
+    private final LongAdder secondPlayerWins = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder firstPlayerMoves = new LongAdder();
+    private final LongAdder secondPlayerMoves = new LongAdder();
+
+    /**
+     * Adds the result and move counts of a finished game.
+     *
+     * @param game The finished game.
+     */
+    public void record(Game game) {
+        Player winner = game.getWinner();
+        if (winner == null) {
+            draws.increment();
+        } else if (winner == game.getHumanPlayer1()) {
+            firstPlayerWins.increment();
+        } else {
+            secondPlayerWins.increment();
+        }
+        firstPlayerMoves.add(game.getMoveCount(game.getHumanPlayer1()));
+        secondPlayerMoves.add(game.getMoveCount(game.getHumanPlayer2()));
+        // Counted last, so a reader that sees the game count also sees its result.
+        games.increment();
+    }
+
+    public long getGames() {
+        return games.sum();
+    }
+
+    public long getFirstPlayerWins() {
+        return firstPlayerWins.sum();
+    }
+
+    public long getSecondPlayerWins() {
+        return secondPlayerWins.sum();
+    }
+
+    public long getDraws() {
+        return draws.sum();
+    }
+
+    public long getFirstPlayerMoves() {
+        return firstPlayerMoves.sum();
+    }
+
+    public long getSecondPlayerMoves() {
+        return secondPlayerMoves.sum();
+    }
+
+    /**
+     * Gets the average number of moves the first player made per game.
+     *
+     * @return The average, 0 if no game was recorded.
+     */
+    public double getAverageFirstPlayerMoves() {
+        long count = getGames();
+        return count == 0 ? 0 : (double) getFirstPlayerMoves() / count;
+    }
+
+    /**
+     * Gets the average number of moves the second player made per game.
+     *
+     * @return The average, 0 if no game was recorded.
+     */
+    public double getAverageSecondPlayerMoves() {
+        long count = getGames();
+        return count == 0 ? 0 : (double) getSecondPlayerMoves() / count;
+    }
+}
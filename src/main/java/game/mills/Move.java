@@ -0,0 +1,102 @@
+package game.mills;
+
+/**
+ * The Move class packs a complete Mills turn into a single int.
+ * A turn consists of a placement or a move, optionally followed by the removal of an opponent's stone
+ * when the placement or move closes a mill.
+ * <p>
+ * Layout (15 bits used):
+ * - bits 0-4:   destination node (0-23)
+ * - bits 5-9:   origin node (0-23), or {@link #NO_NODE} for a placement
+ * - bits 10-14: removed node (0-23), or {@link #NO_NODE} if nothing is removed
+ */
+public final class Move {
+    /**
+     * Marker for an unused node slot inside a packed move.
+     */
+    public static final int NO_NODE = 31;
+    /**
+     * Marker for "no move available".
+     */
+    public static final int NONE = -1;
+
+    private static final int NODE_MASK = 0x1F;
+    private static final int FROM_SHIFT = 5;
+    private static final int REMOVAL_SHIFT = 10;
+
+    private Move() {
+    }
+
+    /**
+     * Creates a placement of a stone on the given node.
+     *
+     * @param to The node the stone is placed on.
+     * @return The packed move.
+     */
+    public static int place(int to) {
+        return to | (NO_NODE << FROM_SHIFT) | (NO_NODE << REMOVAL_SHIFT);
+    }
+
+    /**
+     * Creates a move (or a jump while flying) from one node to another.
+     *
+     * @param from The node the stone is moved from.
+     * @param to   The node the stone is moved to.
+     * @return The packed move.
+     */
+    public static int move(int from, int to) {
+        return to | (from << FROM_SHIFT) | (NO_NODE << REMOVAL_SHIFT);
+    }
+
+    /**
+     * Adds the removal of an opponent's stone to a packed move.
+     *
+     * @param move    The packed placement or move.
+     * @param removal The node of the opponent's stone that is removed.
+     * @return The packed move including the removal.
+     */
+    public static int withRemoval(int move, int removal) {
+        return (move & ~(NODE_MASK << REMOVAL_SHIFT)) | (removal << REMOVAL_SHIFT);
+    }
+
+    public static int to(int move) {
+        return move & NODE_MASK;
+    }
+
+    public static int from(int move) {
+        return (move >>> FROM_SHIFT) & NODE_MASK;
+    }
+
+    public static int removal(int move) {
+        return (move >>> REMOVAL_SHIFT) & NODE_MASK;
+    }
+
+    public static boolean isPlacement(int move) {
+        return from(move) == NO_NODE;
+    }
+
+    public static boolean hasRemoval(int move) {
+        return removal(move) != NO_NODE;
+    }
+
+    /**
+     * Writes a packed move in a short human-readable form, e.g. "12", "3-4" or "3-4x17".
+     *
+     * @param move The packed move.
+     * @return The string representation of the move.
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return "none";
+        }
+        StringBuilder sb = new StringBuilder();
+        if (!isPlacement(move)) {
+            sb.append(from(move)).append('-');
+        }
+        sb.append(to(move));
+        if (hasRemoval(move)) {
+            sb.append('x').append(removal(move));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,26 @@
+package game.mills;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a placement, move or removal applied to the board of a game.
+ */
+@Name("mills.MoveApplied")
+@Label("Move Applied")
+@Category({"Mills", "Game"})
+@Description("A placement, move or removal was applied to the board")
+class MoveAppliedEvent extends Event {
+    @Label("Game Id")
+    long gameId;
+    @Label("Player")
+    String player;
+    @Label("Move")
+    @Description("The move in the notation of Move.toString, with the removal if there is one")
+    String move;
+    @Label("Ply")
+    int ply;
+}
@@ -0,0 +1,68 @@
+package game.mills;
+
+import metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The MoveLatencies class collects the think times of AI moves in a {@link LatencyHistogram} per player
+ * implementation and {@link MovePhase}, to find the positions where the agents are slow.
+ * <p>
+ * Games report to it when it is set with {@link Game#setMoveLatencies(MoveLatencies)}; any number of games may
+ * share one instance.
+ */
+public class MoveLatencies {
+    private final Map<Class<?>, LatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * The latencies of one player implementation in one phase.
+     *
+     * @param agent     The simple class name of the player implementation.
+     * @param phase     The phase.
+     * @param histogram The think times in nanoseconds.
+     */
+    public record Entry(String agent, MovePhase phase, LatencyHistogram histogram) {
+    }
+
+    /**
+     * Records the think time of a move.
+     *
+     * @param player The player that chose the move.
+     * @param phase  The phase of the move.
+     * @param nanos  The think time in nanoseconds.
+     */
+    public void record(Player player, MovePhase phase, long nanos) {
+        histograms.computeIfAbsent(player.getClass(), type -> newHistograms())[phase.ordinal()].record(nanos);
+    }
+
+    private static LatencyHistogram[] newHistograms() {
+        LatencyHistogram[] phases = new LatencyHistogram[MovePhase.values().length];
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+        return phases;
+    }
+
+    /**
+     * Gets the histograms that recorded at least one move, ordered by implementation and phase.
+     *
+     * @return The entries.
+     */
+    public List<Entry> getEntries() {
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<Class<?>, LatencyHistogram[]> agent : histograms.entrySet()) {
+            for (MovePhase phase : MovePhase.values()) {
+                LatencyHistogram histogram = agent.getValue()[phase.ordinal()];
+                if (histogram.getCount() > 0) {
+                    entries.add(new Entry(agent.getKey().getSimpleName(), phase, histogram));
+                }
+            }
+        }
+        entries.sort(Comparator.comparing(Entry::agent).thenComparing(Entry::phase));
+        return entries;
+    }
+}
@@ -0,0 +1,42 @@
+package game.mills;
+
+/**
+ * The phase a move is played in, as seen by the player making it.
+ * <p>
+ * AI players choose the stone to remove together with the move that closes the mill, so the time spent on a
+ * removal cannot be told apart from the move. Such moves are counted as {@link #REMOVAL}, whatever phase they
+ * were played in.
+ */
+public enum MovePhase {
+    PLACING,
+    MOVING,
+    FLYING,
+    REMOVAL;
+
+    /**
+     * Determines the phase of a move.
+     *
+     * @param position The position the move is played in.
+     * @param move     The packed move, or {@link Move#NONE}.
+     * @return The phase.
+     */
+    public static MovePhase of(Position position, int move) {
+        if (move != Move.NONE && Move.hasRemoval(move)) {
+            return REMOVAL;
+        }
+        int side = position.sideToMove();
+        if (position.isPlacing(side)) {
+            return PLACING;
+        }
+        return position.canFly(side) ? FLYING : MOVING;
+    }
+
+    /**
+     * Gets the name used in metrics and reports.
+     *
+     * @return The name in lower case.
+     */
+    public String label() {
+        return name().toLowerCase();
+    }
+}
@@ -1,5 +1,8 @@
 package game.mills;
 
+import trace.Trace;
+import trace.TraceEvent;
+
 /**
  * The MoveValidator class is responsible for validating player moves and placements
  * on the game board. It checks whether a move or placement is valid 
@@ -29,12 +32,12 @@ public class MoveValidator {
         Node node = board.getNode(nodeID);
 
         if (node.isOccupied()) {
-            System.out.println("[DEBUG] Node " + nodeID + " is already occupied!");
+            Trace.record(TraceEvent.PLACEMENT_OCCUPIED, nodeID);
             return false;
         }
         
         if (player.getStonesToPlace() <= 0) {
-            System.out.println("[DEBUG] Player " + player.getName() + " has no stones left to place!");
+            Trace.record(TraceEvent.NO_STONES_TO_PLACE, nodeID);
             return false;
         }
         return player.getStonesToPlace() > 0 && !node.isOccupied();
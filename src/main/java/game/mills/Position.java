@@ -0,0 +1,416 @@
+package game.mills;
+
+import java.util.Map;
+
+/**
+ * The Position class is a compact, immutable snapshot of a Mills game state.
+ * Stones are stored as 24-bit masks (bit i = node i), so positions can be copied, compared and searched
+ * without touching the {@link Board} graph.
+ * <p>
+ * Side 0 is the player who moves first in the game, side 1 the second player.
+ * All moves are packed ints as described in {@link Move}.
+ */
+public final class Position {
+    /**
+     * Number of points on the board.
+     */
+    public static final int POINTS = 24;
+    /**
+     * Upper bound for the number of legal moves in any position (3 flying stones * 21 targets * 9 removals).
+     */
+    public static final int MAX_MOVES = 640;
+
+    private static final int FULL_BOARD = (1 << POINTS) - 1;
+    private static final int[] ADJACENT = new int[POINTS];
+    private static final int[] MILLS;
+    private static final int[][] MILLS_THROUGH = new int[POINTS][];
+
+    static {
+        for (int[] edge : Board.getEdges()) {
+            ADJACENT[edge[0]] |= 1 << edge[1];
+            ADJACENT[edge[1]] |= 1 << edge[0];
+        }
+        int[][] mills = Board.getMills();
+        MILLS = new int[mills.length];
+        for (int i = 0; i < mills.length; i++) {
+            for (int id : mills[i]) {
+                MILLS[i] |= 1 << id;
+            }
+        }
+        for (int node = 0; node < POINTS; node++) {
+            int count = 0;
+            for (int mill : MILLS) {
+                if ((mill & (1 << node)) != 0) {
+                    count++;
+                }
+            }
+            MILLS_THROUGH[node] = new int[count];
+            count = 0;
+            for (int mill : MILLS) {
+                if ((mill & (1 << node)) != 0) {
+                    MILLS_THROUGH[node][count++] = mill;
+                }
+            }
+        }
+    }
+
+    private final int firstStones;
+    private final int secondStones;
+    private final int firstInHand;
+    private final int secondInHand;
+    private final int sideToMove;
+
+    /**
+     * Constructs a position from its raw components.
+     *
+     * @param firstStones  Bitmask of the first player's stones.
+     * @param secondStones Bitmask of the second player's stones.
+     * @param firstInHand  Stones the first player still has to place.
+     * @param secondInHand Stones the second player still has to place.
+     * @param sideToMove   The side to move (0 or 1).
+     */
+    public Position(int firstStones, int secondStones, int firstInHand, int secondInHand, int sideToMove) {
+        this.firstStones = firstStones;
+        this.secondStones = secondStones;
+        this.firstInHand = firstInHand;
+        this.secondInHand = secondInHand;
+        this.sideToMove = sideToMove;
+    }
+
+    /**
+     * Creates the starting position: an empty board with nine stones in hand for each player.
+     *
+     * @return The initial position.
+     */
+    public static Position initial() {
+        return new Position(0, 0, 9, 9, 0);
+    }
+
+    /**
+     * Creates a position from the current state of a board.
+     *
+     * @param board  The game board.
+     * @param first  The player who moved first (side 0).
+     * @param second The second player (side 1).
+     * @param toMove The player whose turn it is.
+     * @return The position equivalent to the board.
+     */
+    public static Position of(Board board, Player first, Player second, Player toMove) {
+        int firstMask = 0;
+        int secondMask = 0;
+        for (Map.Entry<Integer, Node> entry : board.getNodes().entrySet()) {
+            Player occupant = entry.getValue().getOccupant();
+            if (occupant == first) {
+                firstMask |= 1 << entry.getKey();
+            } else if (occupant == second) {
+                secondMask |= 1 << entry.getKey();
+            }
+        }
+        return new Position(firstMask, secondMask, first.getStonesToPlace(), second.getStonesToPlace(), toMove == first ? 0 : 1);
+    }
+
+    /**
+     * Gets the bitmask of all nodes adjacent to a node.
+     *
+     * @param node The node.
+     * @return The neighbour mask.
+     */
+    public static int adjacent(int node) {
+        return ADJACENT[node];
+    }
+
+    /**
+     * Gets the bitmasks of all mills.
+     *
+     * @return The mill masks (shared, do not modify).
+     */
+    public static int[] millMasks() {
+        return MILLS;
+    }
+
+    /**
+     * Gets the bitmasks of the mills running through a node.
+     *
+     * @param node The node.
+     * @return The mill masks containing the node (shared, do not modify).
+     */
+    public static int[] millsThrough(int node) {
+        return MILLS_THROUGH[node];
+    }
+
+    public int stones(int side) {
+        return side == 0 ? firstStones : secondStones;
+    }
+
+    public int inHand(int side) {
+        return side == 0 ? firstInHand : secondInHand;
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public int stoneCount(int side) {
+        return Integer.bitCount(stones(side));
+    }
+
+    public int emptyMask() {
+        return ~(firstStones | secondStones) & FULL_BOARD;
+    }
+
+    /**
+     * Checks if the given side is still in the placing phase.
+     *
+     * @param side The side to check.
+     * @return True if the side has stones left to place.
+     */
+    public boolean isPlacing(int side) {
+        return inHand(side) > 0;
+    }
+
+    /**
+     * Checks if the given side may fly, i.e. has placed all stones and has exactly three left on the board.
+     *
+     * @param side The side to check.
+     * @return True if the side may move to any empty node.
+     */
+    public boolean canFly(int side) {
+        return inHand(side) == 0 && stoneCount(side) == 3;
+    }
+
+    /**
+     * Checks if the stone on (or about to be on) a node closes a mill within the given stone mask.
+     *
+     * @param stones The stone mask including the node.
+     * @param node   The node to check.
+     * @return True if a mill through the node is complete.
+     */
+    public static boolean closesMill(int stones, int node) {
+        for (int mill : MILLS_THROUGH[node]) {
+            if ((stones & mill) == mill) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets all nodes of a stone mask that are part of a complete mill.
+     *
+     * @param stones The stone mask.
+     * @return The mask of all stones inside a mill.
+     */
+    public static int millStones(int stones) {
+        int result = 0;
+        for (int mill : MILLS) {
+            if ((stones & mill) == mill) {
+                result |= mill;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the opponent stones that may be removed after the side to move closes a mill.
+     * Stones in mills are protected unless all of the opponent's stones are in mills.
+     *
+     * @param opponentStones The opponent's stone mask.
+     * @return The mask of removable stones.
+     */
+    public static int removable(int opponentStones) {
+        int free = opponentStones & ~millStones(opponentStones);
+        return free != 0 ? free : opponentStones;
+    }
+
+    /**
+     * Gets the mobility of a side: the number of (from, to) pairs it could play, ignoring removals.
+     *
+     * @param side The side.
+     * @return The number of available placements or moves.
+     */
+    public int mobility(int side) {
+        int empty = emptyMask();
+        if (isPlacing(side)) {
+            return Integer.bitCount(empty);
+        }
+        int own = stones(side);
+        if (canFly(side)) {
+            return Integer.bitCount(own) * Integer.bitCount(empty);
+        }
+        int count = 0;
+        for (int rest = own; rest != 0; rest &= rest - 1) {
+            count += Integer.bitCount(ADJACENT[Integer.numberOfTrailingZeros(rest)] & empty);
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the side to move has lost: it has fewer than three stones after placing, or no legal move.
+     *
+     * @return True if the position is lost for the side to move.
+     */
+    public boolean isLost() {
+        return (!isPlacing(sideToMove) && stoneCount(sideToMove) < 3) || mobility(sideToMove) == 0;
+    }
+
+    /**
+     * Generates all legal moves for the side to move into the given buffer.
+     * The buffer must hold at least {@link #MAX_MOVES} entries.
+     *
+     * @param moves The buffer the packed moves are written to.
+     * @return The number of moves generated.
+     */
+    public int generateMoves(int[] moves) {
+        int side = sideToMove;
+        int own = stones(side);
+        int other = stones(1 - side);
+        int empty = emptyMask();
+        int count = 0;
+
+        if (isPlacing(side)) {
+            for (int targets = empty; targets != 0; targets &= targets - 1) {
+                int to = Integer.numberOfTrailingZeros(targets);
+                count = addWithRemovals(moves, count, Move.place(to), own | (1 << to), to, other);
+            }
+            return count;
+        }
+
+        boolean flying = canFly(side);
+        for (int sources = own; sources != 0; sources &= sources - 1) {
+            int from = Integer.numberOfTrailingZeros(sources);
+            int targets = flying ? empty : ADJACENT[from] & empty;
+            for (; targets != 0; targets &= targets - 1) {
+                int to = Integer.numberOfTrailingZeros(targets);
+                count = addWithRemovals(moves, count, Move.move(from, to), (own & ~(1 << from)) | (1 << to), to, other);
+            }
+        }
+        return count;
+    }
+
+    private static int addWithRemovals(int[] moves, int count, int move, int ownAfter, int to, int other) {
+        if (other != 0 && closesMill(ownAfter, to)) {
+            for (int targets = removable(other); targets != 0; targets &= targets - 1) {
+                moves[count++] = Move.withRemoval(move, Integer.numberOfTrailingZeros(targets));
+            }
+        } else {
+            moves[count++] = move;
+        }
+        return count;
+    }
+
+    /**
+     * Plays a packed move for the side to move. The move is assumed to be legal.
+     *
+     * @param move The packed move.
+     * @return The resulting position with the other side to move.
+     */
+    public Position play(int move) {
+        int own = stones(sideToMove);
+        int other = stones(1 - sideToMove);
+        int hand = inHand(sideToMove);
+        int to = Move.to(move);
+
+        if (Move.isPlacement(move)) {
+            hand--;
+        } else {
+            own &= ~(1 << Move.from(move));
+        }
+        own |= 1 << to;
+        if (Move.hasRemoval(move)) {
+            other &= ~(1 << Move.removal(move));
+        }
+
+        if (sideToMove == 0) {
+            return new Position(own, other, hand, secondInHand, 1);
+        }
+        return new Position(other, own, firstInHand, hand, 0);
+    }
+
+    /**
+     * Packs the complete position into a single long: both stone masks, the stones in hand and the side to move.
+     *
+     * @return The packed key of this position.
+     */
+    public long key() {
+        return (firstStones & 0xFFFFFFL)
+                | ((secondStones & 0xFFFFFFL) << 24)
+                | ((long) firstInHand << 48)
+                | ((long) secondInHand << 52)
+                | ((long) sideToMove << 56);
+    }
+
+    /**
+     * Restores a position from a key created by {@link #key()}.
+     *
+     * @param key The packed key.
+     * @return The position.
+     */
+    public static Position fromKey(long key) {
+        return new Position((int) (key & 0xFFFFFF), (int) ((key >>> 24) & 0xFFFFFF),
+                (int) ((key >>> 48) & 0xF), (int) ((key >>> 52) & 0xF), (int) ((key >>> 56) & 0x1));
+    }
+
+    /**
+     * Reads a position in the format written by {@link #toString()}, e.g. {@code "000000000000000000000000 9/9 1"}.
+     *
+     * @param text The position.
+     * @return The position.
+     * @throws IllegalArgumentException if the text is not a valid position.
+     */
+    public static Position parse(String text) {
+        String[] parts = text.trim().split("\\s+");
+        String[] hands = parts.length == 3 ? parts[1].split("/") : new String[0];
+        if (parts[0].length() != POINTS || hands.length != 2) {
+            throw new IllegalArgumentException("Not a position: " + text);
+        }
+        int first = 0;
+        int second = 0;
+        for (int i = 0; i < POINTS; i++) {
+            char point = parts[0].charAt(i);
+            if (point == '1') {
+                first |= 1 << i;
+            } else if (point == '2') {
+                second |= 1 << i;
+            } else if (point != '0') {
+                throw new IllegalArgumentException("Not a position: " + text);
+            }
+        }
+        int firstInHand = Integer.parseInt(hands[0]);
+        int secondInHand = Integer.parseInt(hands[1]);
+        int side = Integer.parseInt(parts[2]) - 1;
+        if (firstInHand < 0 || firstInHand > 9 || secondInHand < 0 || secondInHand > 9 || (side & ~1) != 0) {
+            throw new IllegalArgumentException("Not a position: " + text);
+        }
+        return new Position(first, second, firstInHand, secondInHand, side);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Position && ((Position) o).key() == key();
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key());
+    }
+
+    /**
+     * Writes the position as 24 characters ('1', '2' or '0' for empty) followed by the hands and the side to move.
+     *
+     * @return A string representation of the position.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < POINTS; i++) {
+            if ((firstStones & (1 << i)) != 0) {
+                sb.append('1');
+            } else if ((secondStones & (1 << i)) != 0) {
+                sb.append('2');
+            } else {
+                sb.append('0');
+            }
+        }
+        return sb.append(' ').append(firstInHand).append('/').append(secondInHand).append(' ').append(sideToMove + 1).toString();
+    }
+}
@@ -0,0 +1,56 @@
+package game.mills;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs the searches of all {@link Agent}s. Every search gets its own virtual thread, so many concurrent games
+ * only share the small pool of carrier threads instead of each starting platform threads.
+ */
+public final class SearchExecutor {
+    private static final ExecutorService VIRTUAL = Executors.newVirtualThreadPerTaskExecutor();
+    // The JVM only accounts allocations to platform threads, so searches measuring them run on these.
+    private static final ExecutorService ACCOUNTING = Executors.newCachedThreadPool(
+            Thread.ofPlatform().name("ai-", 0).daemon().factory());
+
+    private SearchExecutor() {
+    }
+
+    /**
+     * Runs a synchronous search in the background. The search runs on a platform thread in the allocation
+     * accounting mode, see {@link SearchStatistics#setAllocationAccounting(boolean)}.
+     *
+     * @param search The search, returning a packed move.
+     * @return The future of the move. Completing it early, by cancelling it or by a timeout, interrupts the
+     * search, which searches that can stop early check.
+     */
+    public static CompletableFuture<Integer> compute(IntSupplier search) {
+        ExecutorService executor = SearchStatistics.isAllocationAccounting() ? ACCOUNTING : VIRTUAL;
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(search.getAsInt());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((move, error) -> {
+            if (error != null) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs a short task, such as applying a computed move, on a virtual thread.
+     *
+     * @param task The task.
+     */
+    public static void execute(Runnable task) {
+        VIRTUAL.execute(task);
+    }
+}
@@ -0,0 +1,242 @@
+package game.mills;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * The SearchStatistics class records the work one search did to choose one move.
+ * <p>
+ * A new instance is created for every move and filled in by the searching thread, so the counters are plain
+ * fields. Depth-first searches count nodes, leaf evaluations and cutoffs; tree searches count playouts and
+ * report the size of their tree. The searches have no transposition table; the table counters cover the
+ * lookups in the opening book and the endgame database instead.
+ * <p>
+ * In the allocation accounting mode, enabled with {@code -Dmills.allocationAccounting=true} or
+ * {@link #setAllocationAccounting(boolean)}, the heap memory the search allocates is measured as well. The JVM
+ * only counts allocations of platform threads, so searches on virtual threads report -1.
+ */
+public class SearchStatistics {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean ? bean : null;
+    private static volatile boolean allocationAccounting = Boolean.getBoolean("mills.allocationAccounting");
+
+    /**
+     * Positions visited, or tree nodes for tree searches.
+     */
+    @Getter
+    private long nodes;
+    /**
+     * Positions scored by the evaluation function or a network.
+     */
+    @Getter
+    private long leafEvaluations;
+    /**
+     * The deepest ply reached below the searched position.
+     */
+    @Getter
+    private int depthReached;
+    /**
+     * Alpha-beta cutoffs, and those caused by the first move searched.
+     */
+    @Getter
+    private long cutoffs;
+    @Getter
+    private long firstMoveCutoffs;
+    /**
+     * Lookups in the opening book and the endgame database, and those that found the position.
+     */
+    @Getter
+    private long tableProbes;
+    @Getter
+    private long tableHits;
+    /**
+     * Playouts or descents of a tree search.
+     */
+    @Getter
+    private long playouts;
+    /**
+     * The score of the chosen move from the mover's perspective, in the units of the search: evaluation
+     * points for minimax, the expected result scaled to -1000..1000 for tree searches.
+     */
+    @Getter
+    @Setter
+    private int score;
+    private final long startNanos = System.nanoTime();
+    private long stopNanos;
+    private final long startAllocatedBytes = allocationAccounting ? currentThreadAllocatedBytes() : -1;
+    /**
+     * The bytes allocated by the search, -1 if they were not measured.
+     */
+    @Getter
+    private long allocatedBytes = -1;
+
+    public static boolean isAllocationAccounting() {
+        return allocationAccounting;
+    }
+
+    /**
+     * Turns the allocation accounting on or off for searches started from now on.
+     *
+     * @param enabled True to measure the allocated bytes.
+     */
+    public static void setAllocationAccounting(boolean enabled) {
+        allocationAccounting = enabled;
+    }
+
+    /**
+     * Gets the heap memory allocated by the current thread so far.
+     *
+     * @return The bytes, or -1 if the JVM does not measure them for this thread.
+     */
+    public static long currentThreadAllocatedBytes() {
+        if (THREADS == null || !THREADS.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Counts a visited position.
+     *
+     * @param ply The distance of the position from the searched one.
+     */
+    public void countNode(int ply) {
+        nodes++;
+        if (ply > depthReached) {
+            depthReached = ply;
+        }
+    }
+
+    public void countLeafEvaluation() {
+        leafEvaluations++;
+    }
+
+    public void countLeafEvaluations(int count) {
+        leafEvaluations += count;
+    }
+
+    /**
+     * Counts a cutoff.
+     *
+     * @param firstMove True if the first move searched at the node caused it.
+     */
+    public void countCutoff(boolean firstMove) {
+        cutoffs++;
+        if (firstMove) {
+            firstMoveCutoffs++;
+        }
+    }
+
+    /**
+     * Counts a lookup in the opening book or the endgame database.
+     *
+     * @param hit True if the position was found.
+     */
+    public void countTableProbe(boolean hit) {
+        tableProbes++;
+        if (hit) {
+            tableHits++;
+        }
+    }
+
+    public void countPlayout() {
+        playouts++;
+    }
+
+    public void countPlayouts(int count) {
+        playouts += count;
+    }
+
+    /**
+     * Records the tree of a tree search at the end of the search.
+     *
+     * @param size  The number of nodes in the tree.
+     * @param depth The depth of the tree.
+     */
+    public void setTree(long size, int depth) {
+        nodes = size;
+        depthReached = Math.max(depthReached, depth);
+    }
+
+    /**
+     * Stops the clock, which started when the statistics were created, and the allocation accounting. Must be
+     * called on the thread that created the statistics.
+     */
+    public void stop() {
+        if (stopNanos == 0) {
+            stopNanos = System.nanoTime();
+            long allocated = startAllocatedBytes < 0 ? -1 : currentThreadAllocatedBytes();
+            allocatedBytes = allocated < 0 ? -1 : allocated - startAllocatedBytes;
+        }
+    }
+
+    /**
+     * Gets the duration of the search, up to now if it has not stopped yet.
+     *
+     * @return The duration in nanoseconds.
+     */
+    public long getNanos() {
+        return (stopNanos != 0 ? stopNanos : System.nanoTime()) - startNanos;
+    }
+
+    public double getNodesPerSecond() {
+        return perSecond(nodes);
+    }
+
+    public double getPlayoutsPerSecond() {
+        return perSecond(playouts);
+    }
+
+    private double perSecond(long count) {
+        return count * 1e9 / Math.max(getNanos(), 1);
+    }
+
+    /**
+     * Gets the bytes allocated per node, or per tree node for tree searches.
+     *
+     * @return The bytes, -1 if they were not measured.
+     */
+    public double getAllocatedBytesPerNode() {
+        return allocatedBytes < 0 ? -1 : (double) allocatedBytes / Math.max(nodes, 1);
+    }
+
+    /**
+     * Gets the effective branching factor: the branching factor a uniform tree of the reached depth would need
+     * to have as many nodes as were visited.
+     *
+     * @return The factor, 0 if nothing was searched.
+     */
+    public double getEffectiveBranchingFactor() {
+        return depthReached == 0 ? 0 : Math.pow(nodes, 1.0 / depthReached);
+    }
+
+    /**
+     * Gets the share of cutoffs caused by the first move searched, a measure of the move ordering.
+     *
+     * @return The rate, 0 if there were no cutoffs.
+     */
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    /**
+     * Gets the share of table lookups that found the position.
+     *
+     * @return The rate, 0 if there were no lookups.
+     */
+    public double getTableHitRate() {
+        return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+    }
+
+    @Override
+    public String toString() {
+        String text = String.format("nodes=%d leaves=%d depth=%d nps=%.0f ebf=%.2f cutoffs=%d first-move=%.2f "
+                        + "table=%d/%d playouts=%d score=%d ms=%d", nodes, leafEvaluations, depthReached,
+                getNodesPerSecond(), getEffectiveBranchingFactor(), cutoffs, getFirstMoveCutoffRate(), tableHits,
+                tableProbes, playouts, score, getNanos() / 1_000_000);
+        return allocatedBytes < 0 ? text
+                : text + String.format(" allocated=%d bytes-per-node=%.1f", allocatedBytes, getAllocatedBytesPerNode());
+    }
+}
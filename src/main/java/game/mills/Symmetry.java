@@ -0,0 +1,243 @@
+package game.mills;
+
+import java.util.Arrays;
+
+/**
+ * The Symmetry class holds the 16 symmetries of the Nine Men's Morris board as permutations of the 24 points:
+ * the 8 rotations and reflections of the square, each combined with or without swapping the inner and outer ring.
+ * All of them map mills to mills and edges to edges, so positions related by a symmetry are equivalent.
+ * <p>
+ * The permutations are derived from the 7x7 grid coordinates of the points, which are also used by the
+ * tensor encoders, and are checked against the mills and edges of {@link Board} when the class is loaded.
+ * For fast application to stone bitmasks every permutation is also stored as three byte-indexed lookup tables,
+ * so mapping a mask costs three table reads instead of a loop over its bits.
+ * <p>
+ * The canonical form of a position is its image with the smallest {@link Position#key()}; all 16 positions of
+ * an equivalence class share it. Caches, opening books and datasets can key on it to store each class once.
+ */
+public final class Symmetry {
+    /**
+     * Number of board symmetries; index 0 is the identity.
+     */
+    public static final int COUNT = 16;
+    /**
+     * Side length of the grid the board is drawn on.
+     */
+    public static final int GRID_SIZE = 7;
+
+    // Grid row and column of every node, matching the layout of the UI.
+    private static final int[] ROW = {0, 0, 0, 1, 1, 1, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 5, 5, 5, 6, 6, 6};
+    private static final int[] COLUMN = {0, 3, 6, 1, 3, 5, 2, 3, 4, 0, 1, 2, 4, 5, 6, 2, 3, 4, 1, 3, 5, 0, 3, 6};
+
+    private static final int[][] PERMUTATIONS = new int[COUNT][Position.POINTS];
+    private static final int[] INVERSE = new int[COUNT];
+    // MASK_TABLES[symmetry][byte][value]: image of the 8 nodes of one byte of a mask.
+    private static final int[][][] MASK_TABLES = new int[COUNT][3][256];
+
+    static {
+        int[] nodeAt = new int[GRID_SIZE * GRID_SIZE];
+        Arrays.fill(nodeAt, -1);
+        for (int node = 0; node < Position.POINTS; node++) {
+            nodeAt[ROW[node] * GRID_SIZE + COLUMN[node]] = node;
+        }
+        for (int sym = 0; sym < COUNT; sym++) {
+            for (int node = 0; node < Position.POINTS; node++) {
+                int y = ROW[node] - 3;
+                int x = COLUMN[node] - 3;
+                if (sym >= 8) {
+                    // Swap inner and outer ring: distance 3 <-> 1, the middle ring (2) stays.
+                    int ring = Math.max(Math.abs(x), Math.abs(y));
+                    int swapped = 4 - ring;
+                    x = x / ring * swapped;
+                    y = y / ring * swapped;
+                }
+                int square = sym % 8;
+                for (int r = 0; r < square % 4; r++) {
+                    int t = x;
+                    x = -y;
+                    y = t;
+                }
+                if (square >= 4) {
+                    x = -x;
+                }
+                PERMUTATIONS[sym][node] = nodeAt[(y + 3) * GRID_SIZE + (x + 3)];
+            }
+            for (int b = 0; b < 3; b++) {
+                for (int value = 0; value < 256; value++) {
+                    int image = 0;
+                    for (int bit = 0; bit < 8; bit++) {
+                        if ((value & (1 << bit)) != 0) {
+                            image |= 1 << PERMUTATIONS[sym][b * 8 + bit];
+                        }
+                    }
+                    MASK_TABLES[sym][b][value] = image;
+                }
+            }
+            checkGeometry(sym);
+        }
+        for (int sym = 0; sym < COUNT; sym++) {
+            for (int candidate = 0; candidate < COUNT; candidate++) {
+                if (Arrays.equals(compose(candidate, sym), PERMUTATIONS[0])) {
+                    INVERSE[sym] = candidate;
+                }
+            }
+        }
+    }
+
+    private static int[] compose(int second, int first) {
+        int[] result = new int[Position.POINTS];
+        for (int node = 0; node < Position.POINTS; node++) {
+            result[node] = PERMUTATIONS[second][PERMUTATIONS[first][node]];
+        }
+        return result;
+    }
+
+    /**
+     * Verifies that a symmetry maps the mills and edges of {@link Board} onto themselves,
+     * so the grid layout and the board geometry cannot drift apart.
+     */
+    private static void checkGeometry(int symmetry) {
+        for (int mill : Position.millMasks()) {
+            if (Arrays.stream(Position.millMasks()).noneMatch(m -> m == apply(symmetry, mill))) {
+                throw new IllegalStateException("Symmetry " + symmetry + " does not preserve the mills");
+            }
+        }
+        for (int node = 0; node < Position.POINTS; node++) {
+            if (apply(symmetry, Position.adjacent(node)) != Position.adjacent(PERMUTATIONS[symmetry][node])) {
+                throw new IllegalStateException("Symmetry " + symmetry + " does not preserve the edges");
+            }
+        }
+    }
+
+    private Symmetry() {
+    }
+
+    public static int row(int node) {
+        return ROW[node];
+    }
+
+    public static int column(int node) {
+        return COLUMN[node];
+    }
+
+    /**
+     * Maps a single node through a symmetry.
+     *
+     * @param symmetry The symmetry index (0-15).
+     * @param node     The node.
+     * @return The image of the node.
+     */
+    public static int map(int symmetry, int node) {
+        return PERMUTATIONS[symmetry][node];
+    }
+
+    /**
+     * Gets the symmetry that undoes another one.
+     *
+     * @param symmetry The symmetry index (0-15).
+     * @return The index of the inverse symmetry.
+     */
+    public static int inverse(int symmetry) {
+        return INVERSE[symmetry];
+    }
+
+    /**
+     * Maps all nodes of a packed {@link Move} through a symmetry.
+     *
+     * @param symmetry The symmetry index (0-15).
+     * @param move     The packed move.
+     * @return The image of the move.
+     */
+    public static int mapMove(int symmetry, int move) {
+        int to = PERMUTATIONS[symmetry][Move.to(move)];
+        int mapped = Move.isPlacement(move) ? Move.place(to) : Move.move(PERMUTATIONS[symmetry][Move.from(move)], to);
+        return Move.hasRemoval(move) ? Move.withRemoval(mapped, PERMUTATIONS[symmetry][Move.removal(move)]) : mapped;
+    }
+
+    /**
+     * Maps a stone bitmask through a symmetry.
+     *
+     * @param symmetry The symmetry index (0-15).
+     * @param mask     The bitmask of nodes.
+     * @return The bitmask of the image nodes.
+     */
+    public static int apply(int symmetry, int mask) {
+        int[][] tables = MASK_TABLES[symmetry];
+        return tables[0][mask & 0xFF] | tables[1][(mask >>> 8) & 0xFF] | tables[2][(mask >>> 16) & 0xFF];
+    }
+
+    /**
+     * Applies a symmetry to a whole position.
+     *
+     * @param symmetry The symmetry index (0-15).
+     * @param position The position.
+     * @return The transformed position; hands and side to move are unchanged.
+     */
+    public static Position apply(int symmetry, Position position) {
+        return new Position(apply(symmetry, position.stones(0)), apply(symmetry, position.stones(1)),
+                position.inHand(0), position.inHand(1), position.sideToMove());
+    }
+
+    /**
+     * Finds the symmetry that maps a position to its canonical form.
+     *
+     * @param position The position.
+     * @return The index of the symmetry producing the smallest key (the lowest index on ties).
+     */
+    public static int canonicalSymmetry(Position position) {
+        long rest = position.key() & ~0xFFFFFFFFFFFFL;
+        int first = position.stones(0);
+        int second = position.stones(1);
+        long best = Long.MAX_VALUE;
+        int bestSymmetry = 0;
+        for (int sym = 0; sym < COUNT; sym++) {
+            long key = rest | ((long) apply(sym, second) << 24) | apply(sym, first);
+            if (key < best) {
+                best = key;
+                bestSymmetry = sym;
+            }
+        }
+        return bestSymmetry;
+    }
+
+    /**
+     * Computes the key of a position's canonical form, equal for all 16 symmetric positions.
+     *
+     * @param position The position.
+     * @return The canonical key, in the format of {@link Position#key()}.
+     */
+    public static long canonicalKey(Position position) {
+        long rest = position.key() & ~0xFFFFFFFFFFFFL;
+        int first = position.stones(0);
+        int second = position.stones(1);
+        long best = Long.MAX_VALUE;
+        for (int sym = 0; sym < COUNT; sym++) {
+            best = Math.min(best, rest | ((long) apply(sym, second) << 24) | apply(sym, first));
+        }
+        return best;
+    }
+
+    /**
+     * Computes the canonical form of a position.
+     *
+     * @param position The position.
+     * @return The representative of the position's equivalence class.
+     */
+    public static Position canonical(Position position) {
+        return Position.fromKey(canonicalKey(position));
+    }
+
+    /**
+     * Computes a well-mixed 64-bit hash of a position's canonical form, suitable for hash tables.
+     *
+     * @param position The position.
+     * @return The canonical hash.
+     */
+    public static long canonicalHash(Position position) {
+        // SplitMix64 finaliser: spreads the structured key over all 64 bits.
+        long z = canonicalKey(position) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,187 @@
+package gamelog;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+
+import static gamelog.GameLogWriter.FRAME_HEADER_SIZE;
+import static gamelog.GameLogWriter.MAGIC;
+import static gamelog.GameLogWriter.MAX_BODY_SIZE;
+import static gamelog.GameLogWriter.MOVE_SIZE;
+import static gamelog.GameLogWriter.VERSION;
+
+/**
+ * Streams the games of a log written by {@link GameLogWriter}. Only one frame at a time is held in memory, so
+ * logs of any size can be read. A frame cut off at the end of the file, as left by a crash while writing, ends
+ * the log with a warning; a damaged frame elsewhere is an error.
+ */
+@Slf4j
+public class GameLogReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+    private final CRC32 crc = new CRC32();
+    private long offset;
+
+    /**
+     * Opens a log for reading.
+     *
+     * @param file The log file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public GameLogReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Streams all games of a log file; closing the stream closes the file.
+     *
+     * @param file The log file.
+     * @return The games; reading errors are thrown as {@link UncheckedIOException}.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static Stream<LoggedGame> stream(Path file) throws IOException {
+        GameLogReader reader = new GameLogReader(file);
+        Iterator<LoggedGame> games = new Iterator<>() {
+            private LoggedGame next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = reader.next();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public LoggedGame next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                LoggedGame game = next;
+                next = null;
+                return game;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(games,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Reads the next game.
+     *
+     * @return The game, or null at the end of the log.
+     * @throws IOException if the file cannot be read or a frame is damaged.
+     */
+    public LoggedGame next() throws IOException {
+        if (!fill(FRAME_HEADER_SIZE)) {
+            if (buffer.hasRemaining()) {
+                skipTruncatedFrame();
+            }
+            return null;
+        }
+        if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+            throw new IOException("No game log frame at offset " + offset + " of " + file);
+        }
+        int bodySize = buffer.getInt();
+        if (bodySize < 0 || bodySize > MAX_BODY_SIZE) {
+            throw new IOException("Damaged game log frame at offset " + offset + " of " + file);
+        }
+        if (!fill(bodySize + 4)) {
+            skipTruncatedFrame();
+            return null;
+        }
+        int bodyStart = buffer.position();
+        crc.reset();
+        crc.update(buffer.duplicate().limit(bodyStart + bodySize));
+        if (buffer.getInt(bodyStart + bodySize) != (int) crc.getValue()) {
+            throw new IOException("Damaged game log frame at offset " + offset + " of " + file);
+        }
+
+        long startTime = buffer.getLong();
+        long seed = buffer.getLong();
+        int result = buffer.get();
+        String first = readString();
+        String second = readString();
+        long startKey = buffer.getLong();
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * MOVE_SIZE > buffer.remaining()) {
+            throw new IOException("Damaged game log frame at offset " + offset + " of " + file);
+        }
+        List<LoggedMove> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(new LoggedMove(buffer.getShort() & 0xFFFF, buffer.getInt(), buffer.getInt(), buffer.getInt()));
+        }
+        buffer.position(bodyStart + bodySize + 4);
+        offset += FRAME_HEADER_SIZE + bodySize + 4;
+        return new LoggedGame(startTime, seed, first, second, result, startKey, moves);
+    }
+
+    private String readString() {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void skipTruncatedFrame() {
+        log.warn("Ignoring truncated game log frame at offset {} of {}", offset, file);
+        buffer.position(buffer.limit());
+    }
+
+    /**
+     * Makes sure the buffer holds at least the given number of unread bytes, growing it for large frames.
+     *
+     * @return False if the file ends first.
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocate(bytes).put(buffer).flip();
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,223 @@
+package gamelog;
+
+import game.mills.DatasetFlushEvent;
+import lombok.extern.slf4j.Slf4j;
+import metrics.Counter;
+import metrics.MetricsRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Appends {@link LoggedGame}s to a game log file.
+ * <p>
+ * A log is a sequence of self-contained frames, one per game, so files can be appended to by later runs and
+ * concatenated. A frame is the magic {@code "MGLG"}, the format version (short), the body length (int), the body
+ * and the CRC32 of the body (int). The body holds the start time, seed, result, the two player names
+ * (length-prefixed UTF-8), the start position key, the move count and per move the packed move (short), the time
+ * in microseconds, the searched nodes and the score (ints). A game of 60 moves takes about 900 bytes; bodies
+ * of more than 16 MB are not written.
+ * <p>
+ * Frames are collected in a direct buffer and written through the file channel when the buffer is full and
+ * at a fixed interval, so a crash loses at most the games of the last interval; a frame cut off at the end of
+ * the file is skipped by the {@link GameLogReader}. The writer may be shared by concurrently running games.
+ */
+@Slf4j
+public class GameLogWriter implements Closeable {
+    static final int MAGIC = 0x4D474C47; // "MGLG"
+    static final short VERSION = 1;
+    // magic, version, body length
+    static final int FRAME_HEADER_SIZE = 10;
+    static final int MOVE_SIZE = 14;
+    // Larger bodies are rejected, so a damaged length cannot make the reader allocate without bound.
+    static final int MAX_BODY_SIZE = 16 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long DEFAULT_FLUSH_MILLIS = 1000;
+    private static final Counter RECORDS = MetricsRegistry.getDefault()
+            .counter("mills_records_written_total", "Records written by the data writers", "writer", "game_log");
+    private static final Counter BYTES = MetricsRegistry.getDefault()
+            .counter("mills_bytes_written_total", "Bytes written by the data writers", "writer", "game_log");
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService flusher;
+    // Guards the buffer and the file. A lock rather than a monitor, because games are written from virtual
+    // threads, which a monitor held during the file write would pin to their carrier.
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean closed;
+    // Games in the buffer, for the flush events.
+    private int bufferedGames;
+
+    /**
+     * Opens a log for appending with a flush interval of one second, creating it if necessary.
+     *
+     * @param file The log file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public GameLogWriter(Path file) throws IOException {
+        this(file, DEFAULT_FLUSH_MILLIS);
+    }
+
+    /**
+     * Opens a log for appending, creating it if necessary.
+     *
+     * @param file        The log file.
+     * @param flushMillis The interval at which buffered games are written to the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public GameLogWriter(Path file, long flushMillis) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-log-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::periodicFlush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends a game.
+     *
+     * @param game The game.
+     * @throws IOException if the buffer could not be written.
+     */
+    public void write(LoggedGame game) throws IOException {
+        lock.lock();
+        try {
+            writeLocked(game);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLocked(LoggedGame game) throws IOException {
+        if (closed) {
+            throw new IOException("Game log is closed");
+        }
+        byte[] first = game.first().getBytes(StandardCharsets.UTF_8);
+        byte[] second = game.second().getBytes(StandardCharsets.UTF_8);
+        if (first.length > Short.MAX_VALUE || second.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Player name too long");
+        }
+        long bodySize = 8 + 8 + 1 + 2 + first.length + 2 + second.length + 8 + 4
+                + (long) game.moves().size() * MOVE_SIZE;
+        if (bodySize > MAX_BODY_SIZE) {
+            throw new IllegalArgumentException("Game too long for the game log: " + game.moves().size() + " moves");
+        }
+        int frameSize = FRAME_HEADER_SIZE + (int) bodySize + 4;
+        if (buffer.remaining() < frameSize) {
+            flush();
+        }
+        // A frame larger than the buffer gets a buffer of its own.
+        ByteBuffer target = frameSize <= buffer.capacity() ? buffer : ByteBuffer.allocate(frameSize);
+
+        target.putInt(MAGIC).putShort(VERSION).putInt((int) bodySize);
+        int bodyStart = target.position();
+        target.putLong(game.startTime()).putLong(game.seed()).put((byte) game.result());
+        target.putShort((short) first.length).put(first);
+        target.putShort((short) second.length).put(second);
+        target.putLong(game.startKey()).putInt(game.moves().size());
+        for (LoggedMove move : game.moves()) {
+            target.putShort((short) move.move()).putInt(move.micros()).putInt(move.nodes()).putInt(move.score());
+        }
+        crc.reset();
+        crc.update(target.duplicate().position(bodyStart).limit(target.position()));
+        target.putInt((int) crc.getValue());
+
+        if (target != buffer) {
+            target.flip();
+            writeFully(target, 1);
+        } else {
+            bufferedGames++;
+        }
+        RECORDS.increment();
+    }
+
+    /**
+     * Writes the buffered games to the file.
+     *
+     * @throws IOException if writing fails.
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            if (buffer.position() == 0) {
+                return;
+            }
+            buffer.flip();
+            try {
+                writeFully(buffer, bufferedGames);
+                bufferedGames = 0;
+            } finally {
+                buffer.compact();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeFully(ByteBuffer source, int games) throws IOException {
+        DatasetFlushEvent event = new DatasetFlushEvent();
+        event.begin();
+        long bytes = source.remaining();
+        while (source.hasRemaining()) {
+            BYTES.add(channel.write(source));
+        }
+        if (event.shouldCommit()) {
+            event.writer = "game_log";
+            event.records = games;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    private void periodicFlush() {
+        lock.lock();
+        try {
+            if (!closed) {
+                flush();
+            }
+        } catch (IOException e) {
+            log.error("Could not write the game log", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the remaining games, forces them to the storage device and closes the file.
+     *
+     * @throws IOException if writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flusher.shutdownNow();
+            try {
+                flush();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package gamelog;
+
+import game.mills.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A complete game as stored in the game log: who played, how it ended and every move.
+ *
+ * @param startTime The time the game started, in milliseconds since the epoch.
+ * @param seed      The seed the agents were created with, 0 if they were not seeded.
+ * @param first     The name of the first player.
+ * @param second    The name of the second player.
+ * @param result    One of {@link #DRAW}, {@link #FIRST_WINS}, {@link #SECOND_WINS} and {@link #UNFINISHED}.
+ * @param startKey  The {@link Position#key() key} of the position the game started from.
+ * @param moves     The moves in the order they were played.
+ */
+public record LoggedGame(long startTime, long seed, String first, String second, int result, long startKey,
+                         List<LoggedMove> moves) {
+    public static final int DRAW = 0;
+    public static final int FIRST_WINS = 1;
+    public static final int SECOND_WINS = 2;
+    /**
+     * The game was abandoned or aborted before it ended.
+     */
+    public static final int UNFINISHED = 3;
+
+    public LoggedGame {
+        if (result < DRAW || result > UNFINISHED) {
+            throw new IllegalArgumentException("Invalid result " + result);
+        }
+        moves = List.copyOf(moves);
+    }
+
+    /**
+     * Replays the moves.
+     *
+     * @return The positions of the game, starting with the start position and ending with the final one.
+     */
+    public List<Position> positions() {
+        List<Position> positions = new ArrayList<>(moves.size() + 1);
+        Position position = Position.fromKey(startKey);
+        positions.add(position);
+        for (LoggedMove move : moves) {
+            position = position.play(move.move());
+            positions.add(position);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,14 @@
+package gamelog;
+
+import game.mills.Move;
+
+/**
+ * One move of a {@link LoggedGame}.
+ *
+ * @param move   The packed move, see {@link Move}, including the removal if it closed a mill.
+ * @param micros The time since the previous move (or the start of the game) in microseconds.
+ * @param nodes  The number of positions the search visited for this move, 0 if unknown.
+ * @param score  The search score of the move from the mover's perspective, 0 if unknown.
+ */
+public record LoggedMove(int move, int micros, int nodes, int score) {
+}
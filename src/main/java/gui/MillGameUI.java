@@ -4,15 +4,19 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import MCTS.MCTSPlayer;
 import agents.neural_network.BaselineAgent;
 import game.mills.Board;
 import game.mills.Game;
+import game.mills.GameStatistics;
 import game.mills.HumanPlayer;
 import game.mills.InvalidMove;
 import game.mills.Node;
 import game.mills.Player;
+import game.mills.Position;
+import javafx.animation.AnimationTimer;
 import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.geometry.Pos;
@@ -41,6 +45,10 @@ import neural.GameDataCollector;
  * game.
  * It handles creating the game board, pieces, and user interactions, as well as
  * updating the game status.
+ * <p>
+ * The board and labels are rendered once per frame by an {@link AnimationTimer}: the game hands over its latest
+ * position and status texts, possibly from another thread and several times per move, and each frame repaints
+ * only the circles that changed since the frame before, so states in between are dropped rather than queued.
  */
 @Slf4j
 public class MillGameUI {
@@ -55,15 +63,11 @@ public class MillGameUI {
     private static final String run100Games = "run100Games";
     private static final String COLLECT_DATA = "collectData";
     private static final String mctsGame = "mctsGame";
-    private static int numGames;
-    private static int gamesPlayed;
-    private static int baselineWins;
-    private static int minimaxWins;
-    private static int draws;
-    private static int baselinemoves;
-    private static int minimaxmoves;
+    private static final int SIMULATED_GAMES = 10;
     private final Stage primaryStage; // Store the primary stage
     private final String gameType;
+    // Results of the games played in this window so far, handed on to the UI of the next game on restart.
+    private final GameStatistics statistics;
     private Node selectedNode = null; // Store the currently selected node
     private GameDataCollector dataCollector;
     private Label statusLabel; // Label to display the current game status
@@ -73,6 +77,20 @@ public class MillGameUI {
     private Pane root = new Pane(); // Root pane to hold all UI elements
     private int rulesCounter = 1;
     private Text rules;
+    private Circle[] circles;
+    // Handed over by the game and rendered at the next frame; see boardChanged and render.
+    private volatile Position latestPosition = Position.initial();
+    private final AtomicReference<String> pendingStatus = new AtomicReference<>();
+    private final AtomicReference<String> pendingPhase = new AtomicReference<>();
+    // The stones of the first and second player as currently shown.
+    private int shownFirst;
+    private int shownSecond;
+    private final AnimationTimer renderer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            render();
+        }
+    };
 
     /**
      * Constructor to initialize the MillGameUI.
@@ -80,8 +98,20 @@ public class MillGameUI {
      * @param primaryStage The primary stage to display the game UI.
      */
     public MillGameUI(Stage primaryStage, String gameType) {
+        this(primaryStage, gameType, new GameStatistics());
+    }
+
+    /**
+     * Constructor to initialize the MillGameUI as part of a series of games.
+     *
+     * @param primaryStage The primary stage to display the game UI.
+     * @param gameType     The kind of game to start.
+     * @param statistics   The results of the earlier games of the series.
+     */
+    public MillGameUI(Stage primaryStage, String gameType, GameStatistics statistics) {
         this.primaryStage = primaryStage;
         this.gameType = gameType;
+        this.statistics = statistics;
         switch (gameType) {
             case humanGame:
                 startNewGame();
@@ -108,14 +138,6 @@ public class MillGameUI {
 
     }
 
-    public static void incrementBaselineMoves() {
-        baselinemoves++;
-    }
-
-    public static void incrementMinimaxMoves() {
-        minimaxmoves++;
-    }
-
     /**
      * Starts a new game by initializing players, the game logic, and rebuilding the
      * UI.
@@ -190,14 +212,6 @@ public class MillGameUI {
     }
 
     private void run100Games() {
-        if (gamesPlayed == 0) { // Initialize only once
-            numGames = 10;
-            baselineWins = 0;
-            minimaxWins = 0;
-            draws = 0;
-            baselinemoves = 0;
-            minimaxmoves = 0;
-        }
         startSelfPlayGame();
     }
 
@@ -240,8 +254,10 @@ public class MillGameUI {
                     // Randomly assign colors
                     game.setSecondPlayer(minimaxPlayer);
 
-                    // Set up game monitoring to collect data
-                    game.setMoveCallback((board, currentPlayer) -> dataCollector.recordGameState(board, currentPlayer, game.isGameOver, game.getWinner()));
+                    // Collect the game's positions off the game loop and merge them once it has ended
+                    GameDataCollector gameCollector = new GameDataCollector();
+                    game.getEvents().subscribe(gameCollector);
+                    gameCollector.whenCompleted().thenAccept(dataCollector::addGames);
 
                     // Start the game
                     game.startGame();
@@ -316,16 +332,47 @@ public class MillGameUI {
         primaryStage.setWidth(SCENE_WIDTH);
     }
 
-    public void refreshBoard() {
-        for (int i = 0; i < 24; i++) {
-            Node node = game.getBoard().getNode(i);
-            Circle circle = node.getCircle();
-            if (node.isOccupied()) {
-                circle.setFill(node.getOccupant().getColor());
+    /**
+     * Hands over the position to show. May be called from any thread and any number of times per frame; only
+     * the latest position is rendered.
+     *
+     * @param position The current position of the game.
+     */
+    public void boardChanged(Position position) {
+        latestPosition = position;
+    }
+
+    /**
+     * Renders the latest state, once per frame on the FX thread. Only the circles in the dirty mask, whose
+     * occupant differs from the one shown, are repainted.
+     */
+    private void render() {
+        Position position = latestPosition;
+        int first = position.stones(0);
+        int second = position.stones(1);
+        int dirty = (first ^ shownFirst) | (second ^ shownSecond);
+        while (dirty != 0) {
+            int id = Integer.numberOfTrailingZeros(dirty);
+            dirty &= dirty - 1;
+            int bit = 1 << id;
+            if ((first & bit) != 0) {
+                circles[id].setFill(game.getHumanPlayer1().getColor());
+            } else if ((second & bit) != 0) {
+                circles[id].setFill(game.getHumanPlayer2().getColor());
             } else {
-                circle.setFill(Color.LIGHTGRAY);
+                circles[id].setFill(Color.LIGHTGRAY);
             }
         }
+        shownFirst = first;
+        shownSecond = second;
+        String status = pendingStatus.getAndSet(null);
+        if (status != null) {
+            statusLabel.setText(status);
+        }
+        String phase = pendingPhase.getAndSet(null);
+        if (phase != null) {
+            phaseLabel.setText(phase);
+        }
     }
 
     /**
@@ -399,7 +446,7 @@ public class MillGameUI {
         }
 
         // Drawing of nodes (on top of lines for visibility)
-        Circle[] circles = new Circle[positions.length];
+        circles = new Circle[positions.length];
         for (int i = 0; i < positions.length; i++) {
             Node node = game.getBoard().getNode(i);
 
@@ -450,6 +497,7 @@ public class MillGameUI {
         backButtonImageView.setFitWidth(30);
 
         backButtonImageView.setOnMouseClicked(event -> {
+            renderer.stop();
             primaryStage.setWidth(SCENE_WIDTH);
             new StartMenuUI(primaryStage);
         });
@@ -537,6 +585,7 @@ public class MillGameUI {
         primaryStage.setScene(scene);
         primaryStage.setTitle("Nine Men's Morris");
         primaryStage.show();
+        renderer.start();
         game.startGame();
     }
 
@@ -556,7 +605,6 @@ public class MillGameUI {
             if (node.isOccupied() && node.getOccupant() != currentPlayer) {
                 try {
                     game.removeOpponentStone(nodeIndex);
-                    circle.setFill(Color.LIGHTGRAY);
                     statusLabel.setTextFill(Color.BLACK);
                     updateGameStatus(currentPlayer.getName() + " removed an opponent's stone.");
                     statusLabel.setTextFill(Color.BLACK);
@@ -579,11 +627,8 @@ public class MillGameUI {
             if (!node.isOccupied()) {
                 try {
                     game.placePiece(nodeIndex);
-                    if (node.getOccupant() != null) {
-                        circle.setFill(node.getOccupant().getColor());
-                    }
                     statusLabel.setTextFill(Color.BLACK);
-                    statusLabel.setText(game.getCurrentPlayer().getName() + "'s turn.");
+                    updateGameStatus(game.getCurrentPlayer().getName() + "'s turn.");
                 } catch (InvalidMove e) {
                     statusLabel.setTextFill(Color.RED);
                     updateGameStatus(e.getMessage());
@@ -616,12 +661,10 @@ public class MillGameUI {
                 if (!node.isOccupied() && (game.getBoard().isValidMove(selectedNode, node) || canFly)) {
                     try {
                         game.makeMove(selectedNode.getId(), node.getId());
-                        selectedNode.getCircle().setFill(Color.LIGHTGRAY);
                         selectedNode.getCircle().setStroke(Color.BLACK); // Remove highlight
                         selectedNode.getCircle().setStrokeWidth(1.5);
-                        circle.setFill(currentPlayer.getColor());
                         statusLabel.setTextFill(Color.BLACK);
-                        statusLabel.setText(game.getCurrentPlayer().getName() + "'s turn.");
+                        updateGameStatus(game.getCurrentPlayer().getName() + "'s turn.");
                         selectedNode = null;
                     } catch (InvalidMove e) {
                         statusLabel.setTextFill(Color.RED);
@@ -645,15 +688,8 @@ public class MillGameUI {
      */
     public void displayGameOverMessage(Player winner) {
         if (gameType.equals("run100Games")) {
-            gamesPlayed++;
-            if (winner == null) {
-                draws++;
-            } else if (winner == game.getHumanPlayer1()) {
-                baselineWins++;
-            } else if (winner == game.getHumanPlayer2()) {
-                minimaxWins++;
-            }
-            if (gamesPlayed < numGames) {
+            statistics.record(game);
+            if (statistics.getGames() < SIMULATED_GAMES) {
                 // Display the game-over message briefly
                 Platform.runLater(() -> {
                     Alert alert = new Alert(AlertType.INFORMATION);
@@ -676,7 +712,7 @@ public class MillGameUI {
                     Alert alert = new Alert(AlertType.INFORMATION);
                     alert.setTitle("Simulation Complete");
                     alert.setHeaderText(null);
-                    alert.setContentText("Simulation Complete!\n\n" + "Baseline Agent wins: " + baselineWins + "\n" + "Minimax Agent wins: " + minimaxWins + "\n" + "Draws: " + draws + "\n" + "Baseline Agent average moves: " + (baselinemoves / numGames) + "\n" + "Minimax Agent average moves: " + (minimaxmoves / numGames));
+                    alert.setContentText("Simulation Complete!\n\n" + "Baseline Agent wins: " + statistics.getFirstPlayerWins() + "\n" + "Minimax Agent wins: " + statistics.getSecondPlayerWins() + "\n" + "Draws: " + statistics.getDraws() + "\n" + "Baseline Agent average moves: " + (long) statistics.getAverageFirstPlayerMoves() + "\n" + "Minimax Agent average moves: " + (long) statistics.getAverageSecondPlayerMoves());
                     alert.show();
 
                     // Close the application after displaying the results
@@ -718,20 +754,27 @@ public class MillGameUI {
      * Restarts the game by re-initializing the game logic and UI.
      */
     private void restartGame() {
+        renderer.stop();
+        game.abandon();
         primaryStage.setWidth(SCENE_WIDTH);
-        new MillGameUI(primaryStage, gameType);
+        new MillGameUI(primaryStage, gameType, statistics);
     }
 
     /**
-     * Updates the game status label with a given message.
+     * Updates the game status label with a given message at the next frame. May be called from any thread.
      *
      * @param message The message to be displayed in the status label.
      */
     public void updateGameStatus(String message) {
-        statusLabel.setText(message);
+        pendingStatus.set(message);
     }
 
+    /**
+     * Updates the game phase label with a given message at the next frame. May be called from any thread.
+     *
+     * @param message The message to be displayed in the phase label.
+     */
     public void updateGamePhaseLabel(String message) {
-        phaseLabel.setText(message);
+        pendingPhase.set(message);
     }
 }
\ No newline at end of file
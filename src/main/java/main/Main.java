@@ -1,5 +1,6 @@
 package main;
 
+import cli.Cli;
 import gui.StartMenuUI;
 import javafx.application.Application;
 import javafx.stage.Stage;
@@ -23,10 +24,14 @@ public class Main extends Application {
 
     /**
      * Main method to launch the JavaFX application.
+     * If the first argument is a {@link Cli} command, the command is run headless instead.
      *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0 && Cli.isCommand(args[0])) {
+            System.exit(Cli.run(args, System.out, System.err));
+        }
         launch(args); // Launches the JavaFX application
     }
 }
\ No newline at end of file
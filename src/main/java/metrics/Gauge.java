@@ -0,0 +1,23 @@
+package metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value that is read when the metrics are exported, such as the number of running games.
+ */
+public class Gauge implements Metric {
+    private final DoubleSupplier value;
+
+    Gauge(DoubleSupplier value) {
+        this.value = value;
+    }
+
+    public double get() {
+        return value.getAsDouble();
+    }
+
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        MetricsRegistry.sample(out, name, labels, get());
+    }
+}
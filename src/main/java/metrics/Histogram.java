@@ -0,0 +1,87 @@
+package metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts observations, such as think times, in buckets with fixed upper bounds.
+ * <p>
+ * Recording is a binary search over the bounds and two adder increments, so it is cheap enough for every move.
+ * The buckets are exported cumulatively, as Prometheus expects.
+ */
+public class Histogram implements Metric {
+    private final double[] bounds;
+    // One more than bounds, for observations above the last bound.
+    private final LongAdder[] buckets;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(double[] bounds) {
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("Bucket bounds must be ascending");
+            }
+        }
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Creates bounds that grow by a constant factor.
+     *
+     * @param start  The first bound.
+     * @param factor The factor between consecutive bounds, greater than 1.
+     * @param count  The number of bounds.
+     * @return The bounds.
+     */
+    public static double[] exponentialBounds(double start, double factor, int count) {
+        double[] bounds = new double[count];
+        for (int i = 0; i < count; i++) {
+            bounds[i] = start * Math.pow(factor, i);
+        }
+        return bounds;
+    }
+
+    public void observe(double value) {
+        int index = Arrays.binarySearch(bounds, value);
+        buckets[index >= 0 ? index : -index - 1].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Records a duration in seconds, the unit Prometheus uses for times.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void observeNanos(long nanos) {
+        observe(nanos / 1e9);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    @Override
+    public void write(StringBuilder out, String name, String labels) {
+        String separator = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String bound = i < bounds.length ? MetricsRegistry.format(bounds[i]) : "+Inf";
+            MetricsRegistry.sample(out, name + "_bucket", separator + "le=\"" + bound + "\"", cumulative);
+        }
+        MetricsRegistry.sample(out, name + "_sum", labels, getSum());
+        MetricsRegistry.sample(out, name + "_count", labels, cumulative);
+    }
+}
@@ -0,0 +1,15 @@
+package metrics;
+
+/**
+ * A metric of the {@link MetricsRegistry} that can write its samples in the Prometheus text format.
+ */
+interface Metric {
+    /**
+     * Writes the sample lines of this metric, without the HELP and TYPE lines of its family.
+     *
+     * @param out    The output.
+     * @param name   The name of the metric family.
+     * @param labels The formatted labels, e.g. {@code phase="moving"}, or an empty string.
+     */
+    void write(StringBuilder out, String name, String labels);
+}
@@ -0,0 +1,158 @@
+package metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * The MetricsRegistry class holds the counters, gauges and histograms of the engine and exports them in the
+ * Prometheus text format.
+ * <p>
+ * A metric is identified by its name and its labels, given as alternating names and values. Asking for the
+ * same name and labels again returns the same instance, so callers usually look their metrics up once and
+ * keep them in static fields. All metrics can be updated from any thread without locking.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    private record Family(String type, String help, Map<String, Metric> metrics) {
+    }
+
+    /**
+     * Gets the registry the engine reports to.
+     *
+     * @return The shared registry.
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Gets or creates a counter.
+     *
+     * @param name   The metric name, by convention ending in {@code _total}.
+     * @param help   The description exported with the metric.
+     * @param labels Label names and values, alternating.
+     * @return The counter.
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) metric("counter", name, help, labels, key -> new Counter());
+    }
+
+    /**
+     * Registers a gauge, replacing an earlier one with the same name and labels.
+     *
+     * @param name   The metric name.
+     * @param help   The description exported with the metric.
+     * @param value  Supplies the value when the metrics are exported.
+     * @param labels Label names and values, alternating.
+     * @return The gauge.
+     */
+    public Gauge gauge(String name, String help, DoubleSupplier value, String... labels) {
+        Gauge gauge = new Gauge(value);
+        family("gauge", name, help).metrics().put(formatLabels(labels), gauge);
+        return gauge;
+    }
+
+    /**
+     * Gets or creates a histogram. The bounds of an existing histogram are kept.
+     *
+     * @param name   The metric name, by convention ending in the unit, e.g. {@code _seconds}.
+     * @param help   The description exported with the metric.
+     * @param bounds The ascending upper bounds of the buckets.
+     * @param labels Label names and values, alternating.
+     * @return The histogram.
+     */
+    public Histogram histogram(String name, String help, double[] bounds, String... labels) {
+        return (Histogram) metric("histogram", name, help, labels, key -> new Histogram(bounds));
+    }
+
+    private Metric metric(String type, String name, String help, String[] labels,
+                          Function<String, Metric> factory) {
+        return family(type, name, help).metrics().computeIfAbsent(formatLabels(labels), factory);
+    }
+
+    private Family family(String type, String name, String help) {
+        if (!NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+        Family family = families.computeIfAbsent(name,
+                key -> new Family(type, help, new ConcurrentSkipListMap<>()));
+        if (!family.type().equals(type)) {
+            throw new IllegalArgumentException(name + " is already registered as a " + family.type());
+        }
+        return family;
+    }
+
+    private static String formatLabels(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name/value pairs");
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (!NAME.matcher(labels[i]).matches()) {
+                throw new IllegalArgumentException("Invalid label name: " + labels[i]);
+            }
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return text.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Exports all metrics in the Prometheus text exposition format, version 0.0.4.
+     *
+     * @return The metrics, one sample per line.
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            out.append("# HELP ").append(name).append(' ')
+                    .append(family.help().replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type()).append('\n');
+            for (Map.Entry<String, Metric> metric : family.metrics().entrySet()) {
+                metric.getValue().write(out, name, metric.getKey());
+            }
+        }
+        return out.toString();
+    }
+
+    static void sample(StringBuilder out, String name, String labels, long value) {
+        appendName(out, name, labels).append(value).append('\n');
+    }
+
+    static void sample(StringBuilder out, String name, String labels, double value) {
+        appendName(out, name, labels).append(format(value)).append('\n');
+    }
+
+    private static StringBuilder appendName(StringBuilder out, String name, String labels) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        return out.append(' ');
+    }
+
+    static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return Double.toString(value);
+    }
+}
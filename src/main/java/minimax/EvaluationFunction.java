@@ -1,15 +1,16 @@
 package minimax;
 
+import endgame.EndgameDatabase;
 import game.mills.Board;
+import game.mills.Move;
 import game.mills.Node;
 import game.mills.Player;
 import game.mills.Game;
+import game.mills.Position;
 import lombok.Setter;
 import lombok.extern.java.Log;
 
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.Comparator;
 import java.util.Arrays;
 
 /**
@@ -22,12 +23,7 @@ import java.util.Arrays;
 public class EvaluationFunction {
 
     private Game game;
-
-    /**
-     * A static set to keep track of visited board signatures, helping detect loops/repetitions.
-     * If we re-encounter a board signature, we'll penalize it to discourage repetition.
-     */
-    private static final Set<String> visitedStates = new HashSet<>();
+    private EndgameDatabase endgameDatabase = EndgameDatabase.getDefault();
 
     /**
      * Constructor to initialize the EvaluationFunction with a Game instance.
@@ -46,18 +42,6 @@ public class EvaluationFunction {
      * @return An integer score representing the board state from the player's perspective.
      */
     public int evaluate(Board board, Player player, int phase, Node node) {
-        // -----------------------------
-        // Simple Loop/Repetition Check
-        // -----------------------------
-        String signature = createBoardSignature(board);
-        if (visitedStates.contains(signature)) {
-            // Penalize repeated states to reduce loops. Adjust the penalty as desired.
-            return -50;
-        } else {
-            visitedStates.add(signature);
-        }
-        // -----------------------------
-
         switch (phase) {
             case 1:
                 return evaluatePlacementPhase(board, player, node);
@@ -206,6 +190,15 @@ public class EvaluationFunction {
         int score = 0;
         Player opponent = game.getOpponent(player);
 
+        // Solved endgames are scored exactly. Positions are evaluated after the player's move,
+        // so the opponent is the side to move.
+        if (endgameDatabase != null) {
+            int entry = endgameDatabase.probe(Position.of(board, player, opponent, opponent));
+            if (entry != EndgameDatabase.NOT_COVERED) {
+                return -EndgameDatabase.score(entry);
+            }
+        }
+
         // Piece count difference
         int pieceCountDiff = countPieces(board, player) - countPieces(board, opponent);
         score += pieceCountDiff * 30;
@@ -241,26 +234,9 @@ public class EvaluationFunction {
     }
 
     // ------------------------------------------------------------------------
-    // ADDITIONAL METHODS FOR LOOP CHECK & "OPEN A MILL" REWARD
+    // ADDITIONAL METHODS FOR "OPEN A MILL" REWARD
     // ------------------------------------------------------------------------
 
-    /**
-     * Creates a simple board signature to detect repeated positions.
-     * For a robust solution, consider using Zobrist hashing or a full transposition table.
-     */
-    private String createBoardSignature(Board board) {
-        // Build a string occupant list in sorted node order: e.g., "P1--P2-P1-..."
-        return board.getNodes().entrySet().stream()
-                .sorted(Comparator.comparingInt(Map.Entry::getKey)) // sort by node ID
-                .map(e -> {
-                    Node n = e.getValue();
-                    if (!n.isOccupied()) return "-";
-                    // Adjust to your Player's string representation, e.g. name or toString():
-                    return n.getOccupant().toString();
-                })
-                .collect(Collectors.joining());
-    }
-
     /**
      * Provides a small bonus for any piece in a completed mill that has at least one free neighbor,
      * suggesting the player could "lift" it out and re-place it for an immediate re-formed mill.
@@ -310,4 +286,98 @@ public class EvaluationFunction {
         }
         return false;
     }
+
+    // ------------------------------------------------------------------------
+    // CHEAP BITMASK FEATURES (used by MCTS playouts)
+    // ------------------------------------------------------------------------
+
+    /**
+     * Scores a single packed move for the side to move using only bitmask operations.
+     * Rewards closing a mill, blocking an opponent's two-in-a-row, building an own two-in-a-row
+     * and the mobility of the moved stone; penalises giving up a block.
+     *
+     * @param position The position before the move.
+     * @param move     The packed move.
+     * @return A heuristic score, higher is better for the side to move.
+     */
+    public static int scoreMove(Position position, int move) {
+        int side = position.sideToMove();
+        int own = position.stones(side);
+        int other = position.stones(1 - side);
+        int to = Move.to(move);
+        int ownAfter = own | (1 << to);
+        int score = 0;
+
+        if (!Move.isPlacement(move)) {
+            int from = Move.from(move);
+            ownAfter &= ~(1 << from);
+            // Leaving a point that blocked an opponent mill frees it again.
+            for (int mill : Position.millsThrough(from)) {
+                if (Integer.bitCount(other & mill) == 2) {
+                    score -= 30;
+                }
+            }
+        }
+
+        if (Move.hasRemoval(move)) {
+            score += 100;
+            // Prefer removing stones that are part of an opponent two-in-a-row.
+            for (int mill : Position.millsThrough(Move.removal(move))) {
+                if (Integer.bitCount(other & mill) == 2 && (ownAfter & mill) == 0) {
+                    score += 20;
+                }
+            }
+        }
+
+        for (int mill : Position.millsThrough(to)) {
+            int opponentStones = Integer.bitCount(other & mill);
+            int ownStones = Integer.bitCount(ownAfter & mill);
+            if (opponentStones == 2) {
+                score += 40; // Blocks an opponent mill
+            } else if (opponentStones == 0 && ownStones == 2) {
+                score += 10; // Builds an own two-in-a-row
+            }
+        }
+
+        int emptyAfter = ~(ownAfter | other) & ((1 << Position.POINTS) - 1);
+        score += 2 * Integer.bitCount(Position.adjacent(to) & emptyAfter);
+        return score;
+    }
+
+    /**
+     * Statically evaluates a position for a side using only bitmask operations:
+     * material (including stones in hand), closed mills, open two-in-a-rows and mobility.
+     *
+     * @param position The position.
+     * @param side     The side for which the position is evaluated.
+     * @return A heuristic score, higher is better for the side.
+     */
+    public static int evaluate(Position position, int side) {
+        if (position.isLost()) {
+            return position.sideToMove() == side ? -1000 : 1000;
+        }
+        int own = position.stones(side);
+        int other = position.stones(1 - side);
+        int score = 30 * (Integer.bitCount(own) + position.inHand(side)
+                - Integer.bitCount(other) - position.inHand(1 - side));
+
+        for (int mill : Position.millMasks()) {
+            int ownStones = Integer.bitCount(own & mill);
+            int opponentStones = Integer.bitCount(other & mill);
+            if (ownStones == 3) {
+                score += 25;
+            } else if (opponentStones == 3) {
+                score -= 25;
+            } else if (ownStones == 2 && opponentStones == 0) {
+                score += 15;
+            } else if (opponentStones == 2 && ownStones == 0) {
+                score -= 15;
+            }
+        }
+
+        if (!position.isPlacing(side) && !position.isPlacing(1 - side)) {
+            score += 5 * (position.mobility(side) - position.mobility(1 - side));
+        }
+        return score;
+    }
 }
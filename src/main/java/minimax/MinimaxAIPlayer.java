@@ -1,24 +1,22 @@
 package minimax;
 
 import game.mills.*;
-import gui.MillGameUI;
 import javafx.scene.paint.Color;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.java.Log;
 
 import java.util.Random;
-import java.util.logging.Level;
-import javafx.application.Platform;
+import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * The MinimaxAIPlayer class represents an AI-controlled player that uses the Minimax algorithm
- * to make strategic moves in the game. It extends the Player interface to interact with the game,
+ * to make strategic moves in the game. It implements the Agent interface to interact with the game,
  * and calculates moves based on the current board state, game phase, and opponent's position.
  */
 @Slf4j
-public class MinimaxAIPlayer implements Player {
+public class MinimaxAIPlayer implements Agent {
     private final int depth;            // The search depth for the Minimax algorithm
     @Setter
     private MinimaxAlgorithm minimax;   // Instance of MinimaxAlgorithm for calculating the best moves
@@ -32,8 +30,10 @@ public class MinimaxAIPlayer implements Player {
     private int stonesToPlace;          // Stones the AI player still needs to place in the placement phase
     @Getter
     private int stonesOnBoard;          // Stones the AI player currently has on the board
-    @Setter
     private Game game;                  // The current game instance
+    private Player first;               // The players of the game, side 0 and 1 of the positions
+    private Player second;
+    private final Random random = new Random(); // Picks the first stone if the opening book has none
 
     /**
      * Constructor to initialize the MinimaxAIPlayer with a given name, depth, game, and color.
@@ -54,76 +54,141 @@ public class MinimaxAIPlayer implements Player {
     }
 
     /**
-     * Executes the best move calculated by the Minimax algorithm for the given board and phase.
-     * The method finds the optimal move using Minimax and applies it to the board.
+     * Sets the game and remembers its players, so that requests need not read the game.
+     */
+    @Override
+    public void setGame(Game game) {
+        this.game = game;
+        this.first = game.getHumanPlayer1();
+        this.second = game.getHumanPlayer2();
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Calculates the move in the background. With a deadline the search deepens iteratively and plays the best
+     * move found once it has passed, see {@link MinimaxAlgorithm#findBestMove(Board, Player, int, long)}.
+     */
+    @Override
+    public CompletableFuture<Integer> requestMove(Position position, long deadline) {
+        return SearchExecutor.compute(() -> chooseMove(position, deadline));
+    }
+
+    /**
+     * Calculates the best move with the Minimax algorithm, including the stone to remove if the move closes a mill.
+     * The search runs on a board built from the position; the game itself is not read or changed, which lets the
+     * calculation run off the UI thread.
      *
-     * @param board The game board on which the move is to be made.
-     * @param phase The current phase of the game (1 = placement, 2 = movement, 3 = endgame).
+     * @param position The position, with this player to move.
+     * @return The packed move, or {@link Move#NONE} if there is none.
      */
-    public void makeMove(Board board, int phase) {
-        Platform.runLater(() -> {
-            if (stonesToPlace == 9) {
-                // First move logic: place a random stone
-                Random r = new Random();
-                int randomPlacement = r.nextInt(24);
-                if (board.getNode(randomPlacement).isOccupied()) {
-                    randomPlacement = r.nextInt(24);
-                    game.placePiece(randomPlacement);
-                    MillGameUI.incrementMinimaxMoves();
-                } else {
-                    game.placePiece(randomPlacement);
-                    MillGameUI.incrementMinimaxMoves();
-                }
-            } else {
-                if (phase == 1) {
-                    // Placement phase
-                    int bestPlacement = minimax.findBestPlacement(board, this);
-                    if (bestPlacement != -1) {
-                        try {
-                            game.placePiece(bestPlacement);
-                            MillGameUI.incrementMinimaxMoves();
-                            // Check for mill formation
-                            if (game.isMillFormed()) {
-                                handleMillFormation(board);
-                            }
-                        } catch (InvalidMove e) {
-                            log.error("Failed to place piece", e);
-                        }
-                    }
-                } else {
-                    // Movement/Endgame phase
-                    Node[] bestMove = minimax.findBestMove(board, this, phase);
-                    if (bestMove != null && bestMove[0] != null && bestMove[1] != null) {
-                        try {
-                            game.makeMove(bestMove[0].getId(), bestMove[1].getId());
-                            MillGameUI.incrementMinimaxMoves();
-                            // Check for mill formation
-                            if (game.isMillFormed()) {
-                                handleMillFormation(board);
-                            }
-                        } catch (InvalidMove e) {
-                            log.error("Failed to make move", e);
-                        }
-                    } else {
-                        log.error("No valid move found for AI.");
-                        if (bestMove[0] == null || bestMove[1] == null) {
-                            log.error("No valid move found. Falling back to random.");
-                            for (Node fromNode : board.getNodes().values()) {
-                                if (fromNode.getOccupant() == this) {
-                                    for (Node toNode : board.getNeighbours(fromNode)) {
-                                        if (!toNode.isOccupied()) {
-                                            game.makeMove(fromNode.getId(), toNode.getId());
-                                            return;
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                        
-                    }
+    public int chooseMove(Position position) {
+        return chooseMove(position, NO_DEADLINE);
+    }
+
+    /**
+     * Calculates the best move like {@link #chooseMove(Position)}, searching no longer than a deadline.
+     *
+     * @param position The position, with this player to move.
+     * @param deadline The {@link System#nanoTime()} by which the move is due, or {@link #NO_DEADLINE}.
+     * @return The packed move, or {@link Move#NONE} if there is none.
+     */
+    public int chooseMove(Position position, long deadline) {
+        MinimaxSearchEvent event = new MinimaxSearchEvent();
+        event.begin();
+        SearchStatistics statistics = minimax.startStatistics();
+        int move;
+        try {
+            move = searchMove(position, deadline);
+        } finally {
+            statistics.stop();
+        }
+        if (event.shouldCommit()) {
+            event.player = name;
+            event.depth = statistics.getDepthReached();
+            event.nodes = statistics.getNodes();
+            event.score = statistics.getScore();
+            event.move = Move.toString(move);
+            event.commit();
+        }
+        return move;
+    }
+
+    /**
+     * Gets the statistics of the last move calculated by {@link #chooseMove(Position)}.
+     *
+     * @return The statistics.
+     */
+    @Override
+    public SearchStatistics getSearchStatistics() {
+        return minimax.getStatistics();
+    }
+
+    private int searchMove(Position position, long deadline) {
+        Board board = Board.of(position, first, second);
+        int side = position.sideToMove();
+        int[] legalMoves = new int[Position.MAX_MOVES];
+        int legalCount = position.generateMoves(legalMoves);
+        if (legalCount == 0) {
+            return Move.NONE;
+        }
+
+        int move = Move.NONE;
+        if (position.isPlacing(side)) {
+            // Placement phase; the first stone comes from the opening book or is random
+            boolean firstStone = position.inHand(side) == 9;
+            int placement = firstStone ? minimax.findBookPlacement(position) : -1;
+            if (placement == -1 && firstStone) {
+                int empty = position.emptyMask();
+                int skip = random.nextInt(Integer.bitCount(empty));
+                for (int i = 0; i < skip; i++) {
+                    empty &= empty - 1;
                 }
+                placement = Integer.numberOfTrailingZeros(empty);
+            } else if (placement == -1) {
+                placement = minimax.findBestPlacement(board, this);
+            }
+            if (placement != -1) {
+                move = Move.place(placement);
+            }
+        } else {
+            // Movement/Endgame phase
+            Node[] bestMove = minimax.findBestMove(board, this, 2, deadline);
+            if (bestMove[0] != null && bestMove[1] != null) {
+                move = Move.move(bestMove[0].getId(), bestMove[1].getId());
+            }
+        }
+        move = move == Move.NONE ? Move.NONE : withRemoval(board, position, move);
+        for (int i = 0; i < legalCount; i++) {
+            if (legalMoves[i] == move) {
+                return move;
             }
-        });
+        }
+        log.error("No valid move found by Minimax. Falling back to the first legal move.");
+        return legalMoves[0];
+    }
+
+    /**
+     * Adds the stone to remove to a move that closes a mill: the one planned by the opening book or endgame
+     * database if there is one, otherwise the first opponent stone that may be removed.
+     */
+    private int withRemoval(Board board, Position position, int move) {
+        int side = position.sideToMove();
+        int own = position.stones(side);
+        int to = Move.to(move);
+        int ownAfter = (Move.isPlacement(move) ? own : own & ~(1 << Move.from(move))) | (1 << to);
+        Node planned = minimax.takePlannedRemoval(board);
+        if (!Position.closesMill(ownAfter, to)) {
+            return move;
+        }
+        int removable = Position.removable(position.stones(1 - side));
+        if (planned != null && (removable & (1 << planned.getId())) != 0) {
+            return Move.withRemoval(move, planned.getId());
+        }
+        return Move.withRemoval(move, Integer.numberOfTrailingZeros(removable));
     }
 
     /**
@@ -152,44 +217,4 @@ public class MinimaxAIPlayer implements Player {
     public void decrementStonesOnBoard() {
         stonesOnBoard--;
     }
-
-    // Helper method to handle mill formation and remove opponent's piece
-    // Helper method to handle mill formation and remove opponent's piece
-    // Helper method to handle mill formation and remove opponent's piece
-    private void handleMillFormation(Board board) {
-        Player opponent = game.getOpponent(this);
-        boolean removedPiece = false;
-
-        // Iterate through the opponent's stones to remove a piece not in a mill
-        for (Node node : board.getNodes().values()) {
-            if (node.isOccupied() && node.getOccupant() == opponent && !board.isPartOfMill(node)) {
-                try {
-                    game.removePiece(node.getId());
-                    log.info("Removed opponent's piece not in a mill.");
-                    removedPiece = true;
-                    break;
-                } catch (InvalidMove e) {
-                    log.error("Failed to remove piece: {0}", e);
-                }
-            }
-        }
-
-        // If all opponent stones are in mills, remove any one of them
-        if (!removedPiece) {
-            for (Node node : board.getNodes().values()) {
-                if (node.isOccupied() && node.getOccupant() == opponent) {
-                    try {
-                        game.removePiece(node.getId());
-                        log.info("All opponent stones are in mills. Removed a piece from a mill.");
-                        break;
-                    } catch (InvalidMove e) {
-                        log.error("Failed to remove piece from a mill: {0}", e);
-                    }
-                }
-            }
-        }
-    }
-
-
-
 }
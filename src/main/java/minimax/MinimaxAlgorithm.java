@@ -1,9 +1,16 @@
 package minimax;
 
+import book.OpeningBook;
+import endgame.EndgameDatabase;
+import game.mills.Agent;
 import game.mills.Board;
 import game.mills.Game;
+import game.mills.Move;
 import game.mills.Player;
 import game.mills.Node;
+import game.mills.Position;
+import game.mills.SearchStatistics;
+import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.java.Log;
 
@@ -15,6 +22,11 @@ import java.util.Random;
  * The MinimaxAlgorithm class implements the Minimax algorithm to determine the best move for the AI player.
  * It evaluates potential moves up to a given depth and chooses the move with the optimal outcome for the player.
  * This class includes both the primary Minimax algorithm with recursive depth-limited search and evaluation.
+ * Once all stones are placed and the position is covered by the {@link EndgameDatabase}, the database result
+ * is used instead of searching, which gives perfect play in the solved endgames. Likewise, placements found in
+ * the {@link OpeningBook} are played without evaluating the board.
+ * The work done for a move is recorded in {@link SearchStatistics}, see {@link #startStatistics()}.
+ * A move search with a deadline deepens iteratively, so it always has a move to return once time is up.
  */
 @Log
 public class MinimaxAlgorithm {
@@ -22,6 +34,27 @@ public class MinimaxAlgorithm {
     private EvaluationFunction evaluationFunction;
     @Setter
     private Game game;
+    @Setter
+    private EndgameDatabase endgameDatabase = EndgameDatabase.getDefault();
+    @Setter
+    private OpeningBook openingBook = OpeningBook.getDefault();
+    // Removal belonging to the last database or book move, taken by bestRemoval.
+    private int plannedRemoval = Move.NO_NODE;
+    /**
+     * Score of a position that repeats one on the current search path, from the searching player's perspective.
+     * Slightly negative, so the player avoids going in circles unless everything else is worse.
+     */
+    static final int REPETITION_SCORE = -50;
+    // Keys of the positions from the root down to the node being searched, for the repetition check.
+    private final long[] path;
+    private int pathLength;
+    // Depth of the current iteration of the move search, and when and whether it has to stop.
+    private int rootDepth;
+    private long deadline = Agent.NO_DEADLINE;
+    private boolean stopped;
+    // Statistics of the current move; replaced by startStatistics.
+    @Getter
+    private SearchStatistics statistics = new SearchStatistics();
 
     /**
      * Constructor to initialize MinimaxAlgorithm with a Game instance and search depth.
@@ -33,6 +66,7 @@ public class MinimaxAlgorithm {
     public MinimaxAlgorithm(int depth, EvaluationFunction evaluationFunction, Game game) {
         this.depth = depth;
         this.game = game;
+        this.path = new long[depth + 1];
         // Although an evaluationFunction is passed in, the original code re-initialized it.
         // To respect "without changing previous implementations," we keep that behavior:
         this.evaluationFunction = new EvaluationFunction(game); 
@@ -40,11 +74,25 @@ public class MinimaxAlgorithm {
         // this.evaluationFunction = evaluationFunction;
     }
 
+    /**
+     * Starts recording the statistics of a new move. Everything searched until the next call counts towards it.
+     *
+     * @return The new statistics, also available from {@link #getStatistics()}.
+     */
+    public SearchStatistics startStatistics() {
+        statistics = new SearchStatistics();
+        return statistics;
+    }
+
     /**
      * Finds the best placement (node ID) for the given player by checking all empty spots 
      * and picking the one with the highest evaluation score (placement phase).
      */
     public int findBestPlacement(Board board, Player player) {
+        int bookPlacement = findBookPlacement(board, player);
+        if (bookPlacement != -1) {
+            return bookPlacement;
+        }
         int bestValue = Integer.MIN_VALUE;
         int bestPlacement = -1;
         Board copyBoard = board.deepCopy();
@@ -53,6 +101,8 @@ public class MinimaxAlgorithm {
             if (!node.isOccupied()) {
                 copyBoard.placePieceAgent(player, node.getId());
                 int placementValue = evaluationFunction.evaluate(copyBoard, player, 1, node);
+                statistics.countNode(1);
+                statistics.countLeafEvaluation();
                 if (placementValue > bestValue) {
                     bestValue = placementValue;
                     bestPlacement = node.getId();
@@ -63,6 +113,7 @@ public class MinimaxAlgorithm {
             }
         }
         // log.log(Level.INFO, "Best placement {0}", bestPlacement);
+        statistics.setScore(bestValue);
         return bestPlacement;
     }
 
@@ -74,10 +125,71 @@ public class MinimaxAlgorithm {
      * @return An array containing [fromNode, toNode] representing the best move.
      */
     public Node[] findBestMove(Board board, Player player, int phase) {
+        return findBestMove(board, player, phase, Agent.NO_DEADLINE);
+    }
+
+    /**
+     * Finds the best move (fromNode -> toNode) for the given player by a deadline. Without a deadline the
+     * search goes to the full depth at once. With one it deepens from depth 1 and returns the best move of the
+     * deepest iteration completed in time, or, if not even the first one was, the best root move searched.
+     * An interrupted search stops the same way.
+     *
+     * @param board    The current game board.
+     * @param player   The AI player for whom the best move is being calculated.
+     * @param phase    The current phase of the game (1 = placement, 2 = movement, 3 = endgame).
+     * @param deadline The {@link System#nanoTime()} by which the move is due, or {@link Agent#NO_DEADLINE}.
+     * @return An array containing [fromNode, toNode] representing the best move.
+     */
+    public Node[] findBestMove(Board board, Player player, int phase, long deadline) {
         Node[] bestMove = new Node[2];
+
+        int perfectMove = probeBestMove(board, player);
+        if (perfectMove != Move.NONE) {
+            bestMove[0] = board.getNode(Move.from(perfectMove));
+            bestMove[1] = board.getNode(Move.to(perfectMove));
+            plannedRemoval = Move.removal(perfectMove);
+            return bestMove;
+        }
+        plannedRemoval = Move.NO_NODE;
+        statistics.countNode(0);
+        this.deadline = deadline;
+        stopped = false;
+        for (rootDepth = deadline == Agent.NO_DEADLINE ? depth : 1; rootDepth <= depth; rootDepth++) {
+            MinimaxIterationEvent event = new MinimaxIterationEvent();
+            event.begin();
+            Node[] iterationMove = new Node[2];
+            int value = searchRoot(board, player, phase, iterationMove);
+            if (!stopped || bestMove[0] == null) {
+                bestMove = iterationMove;
+                statistics.setScore(value);
+            }
+            if (stopped) {
+                break;
+            }
+            if (event.shouldCommit()) {
+                event.player = player.getName();
+                event.depth = rootDepth;
+                event.nodes = statistics.getNodes();
+                event.score = value;
+                event.commit();
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Searches all moves of the player to the depth of the current iteration.
+     *
+     * @param bestMove Receives [fromNode, toNode] of the best move; if the search stopped, of the best move
+     *                 among those searched completely.
+     * @return The value of the best move.
+     */
+    private int searchRoot(Board board, Player player, int phase, Node[] bestMove) {
         int bestValue = Integer.MIN_VALUE;
+        pathLength = 0;
+        path[pathLength++] = pathKey(board, player, player);
 
-        // Try all possible moves from every node occupied by 'player'.
+        // Try all possible moves from every node occupied by 'player'
         for (Node fromNode : board.getNodes().values()) {
             if (fromNode.getOccupant() == player) {
                 for (Node toNode : board.getNeighbours(fromNode)) {
@@ -85,10 +197,13 @@ public class MinimaxAlgorithm {
                         // Make the move (temporarily)
                         board.movePiece(player, fromNode.getId(), toNode.getId());
                         // Evaluate via minimax
-                        int moveValue = minimax(board, depth - 1, false, player, phase);
+                        int moveValue = minimax(board, rootDepth - 1, false, player, phase);
                         // Undo move
                         board.movePiece(player, toNode.getId(), fromNode.getId());
 
+                        if (stopped) {
+                            return bestValue;
+                        }
                         if (moveValue > bestValue) {
                             bestValue = moveValue;
                             bestMove[0] = fromNode;
@@ -99,7 +214,17 @@ public class MinimaxAlgorithm {
             }
         }
         // log.log(Level.INFO, "Best Value: {0}", bestValue);
-        return bestMove;
+        return bestValue;
+    }
+
+    /**
+     * Checks whether the move search has to stop because it was interrupted or its deadline has passed.
+     */
+    private boolean isStopped() {
+        if (!stopped) {
+            stopped = Thread.currentThread().isInterrupted() || Agent.isExpired(deadline);
+        }
+        return stopped;
     }
 
     // ------------------------------------------------------------------------------------
@@ -126,16 +251,46 @@ public class MinimaxAlgorithm {
      */
     private int minimax(Board board, int depth, boolean isMaximizingPlayer, Player player, int phase,
                         int alpha, int beta) {
+        if (isStopped()) {
+            // The value is not used: the root discards the move being searched.
+            return 0;
+        }
+        statistics.countNode(rootDepth - depth);
+        Player toMove = isMaximizingPlayer ? player : game.getOpponent(player);
+        long key = pathKey(board, player, toMove);
+        if (isOnPath(key)) {
+            return REPETITION_SCORE;
+        }
+        path[pathLength++] = key;
+        try {
+            return search(board, depth, isMaximizingPlayer, player, phase, alpha, beta, toMove);
+        } finally {
+            pathLength--;
+        }
+    }
+
+    /**
+     * Searches a position that is not a repetition; see {@link #minimax(Board, int, boolean, Player, int, int, int)}.
+     */
+    private int search(Board board, int depth, boolean isMaximizingPlayer, Player player, int phase,
+                       int alpha, int beta, Player toMove) {
+        int endgameScore = probeScore(board, player, toMove);
+        if (endgameScore != EndgameDatabase.NOT_COVERED) {
+            return endgameScore;
+        }
 
         // If we've reached max depth or the game is over (no valid moves, etc.)
         if (depth == 0 || game.isGameOver) {
+            statistics.countLeafEvaluation();
             return evaluationFunction.evaluate(board, player, phase, null);
         }
 
         if (isMaximizingPlayer) {
             int maxEval = Integer.MIN_VALUE;
+            int searched = 0;
 
             // Try all moves for the AI (player)
+            moves:
             for (Node fromNode : board.getNodes().values()) {
                 if (fromNode.getOccupant() == player) {
                     for (Node toNode : board.getNeighbours(fromNode)) {
@@ -148,8 +303,10 @@ public class MinimaxAlgorithm {
 
                             maxEval = Math.max(maxEval, eval);
                             alpha = Math.max(alpha, eval);
+                            searched++;
                             if (beta <= alpha) {
-                                break;
+                                statistics.countCutoff(searched == 1);
+                                break moves;
                             }
                         }
                     }
@@ -161,8 +318,10 @@ public class MinimaxAlgorithm {
             // Minimizing player (opponent)
             int minEval = Integer.MAX_VALUE;
             Player opponent = game.getOpponent(player);
+            int searched = 0;
 
             // Try all moves for the opponent
+            moves:
             for (Node fromNode : board.getNodes().values()) {
                 if (fromNode.getOccupant() == opponent) {
                     for (Node toNode : board.getNeighbours(fromNode)) {
@@ -175,8 +334,10 @@ public class MinimaxAlgorithm {
 
                             minEval = Math.min(minEval, eval);
                             beta = Math.min(beta, eval);
+                            searched++;
                             if (beta <= alpha) {
-                                break;
+                                statistics.countCutoff(searched == 1);
+                                break moves;
                             }
                         }
                     }
@@ -186,16 +347,131 @@ public class MinimaxAlgorithm {
         }
     }
 
+    /**
+     * Computes the exact key of a position for the repetition check. Stones are not placed or removed during
+     * the search, so positions can only repeat with the same player to move.
+     */
+    private long pathKey(Board board, Player player, Player toMove) {
+        return Position.of(board, player, game.getOpponent(player), toMove).key();
+    }
+
+    /**
+     * Checks whether a position already occurred on the current search path. Only this path counts, so the
+     * result of a search does not depend on what earlier searches visited.
+     */
+    private boolean isOnPath(long key) {
+        for (int i = pathLength - 1; i >= 0; i--) {
+            if (path[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ------------------------------------------------------------------------------------
+    // Opening book and endgame database
+    // ------------------------------------------------------------------------------------
+
+    /**
+     * Looks up the placement of the player to move in the opening book. A removal that belongs to the
+     * book move is remembered for {@link #takePlannedRemoval(Board)}.
+     *
+     * @param board  The current game board.
+     * @param player The player to move.
+     * @return The node to place on, or -1 if the book has no move for the position.
+     */
+    public int findBookPlacement(Board board, Player player) {
+        return findBookPlacement(Position.of(board, player, game.getOpponent(player), player));
+    }
+
+    /**
+     * Looks up the placement of the side to move in the opening book, like {@link #findBookPlacement(Board, Player)}.
+     *
+     * @param position The position.
+     * @return The node to place on, or -1 if the book has no move for the position.
+     */
+    public int findBookPlacement(Position position) {
+        plannedRemoval = Move.NO_NODE;
+        if (openingBook == null) {
+            return -1;
+        }
+        int move = openingBook.probe(position);
+        statistics.countTableProbe(move != Move.NONE);
+        if (move == Move.NONE) {
+            return -1;
+        }
+        plannedRemoval = Move.removal(move);
+        return Move.to(move);
+    }
+
+    /**
+     * Looks up the perfect move of the player to move in the endgame database.
+     *
+     * @param board  The current game board.
+     * @param player The player to move.
+     * @return The packed move, or {@link Move#NONE} if the position is not in the database.
+     */
+    private int probeBestMove(Board board, Player player) {
+        if (endgameDatabase == null) {
+            return Move.NONE;
+        }
+        Position position = Position.of(board, player, game.getOpponent(player), player);
+        int move = endgameDatabase.bestMove(position, new int[Position.MAX_MOVES]);
+        statistics.countTableProbe(move != Move.NONE);
+        return move;
+    }
+
+    /**
+     * Scores a position with the endgame database.
+     *
+     * @param board  The game board.
+     * @param player The player from whose perspective the score is given.
+     * @param toMove The player to move.
+     * @return The exact score, or {@link EndgameDatabase#NOT_COVERED} if the position is not in the database.
+     */
+    private int probeScore(Board board, Player player, Player toMove) {
+        if (endgameDatabase == null || player.getStonesToPlace() > 0 || game.getOpponent(player).getStonesToPlace() > 0) {
+            return EndgameDatabase.NOT_COVERED;
+        }
+        int entry = endgameDatabase.probe(Position.of(board, player, game.getOpponent(player), toMove));
+        statistics.countTableProbe(entry != EndgameDatabase.NOT_COVERED);
+        if (entry == EndgameDatabase.NOT_COVERED) {
+            return entry;
+        }
+        int score = EndgameDatabase.score(entry);
+        return toMove == player ? score : -score;
+    }
+
     // ------------------------------------------------------------------------------------
     // Removing an opponent piece after forming a mill
     // ------------------------------------------------------------------------------------
 
+    /**
+     * Returns the removal that belongs to the last move taken from the endgame database, and forgets it.
+     *
+     * @param board The current game board.
+     * @return The node to remove, or null if the last move did not come from the database or removes nothing.
+     */
+    public Node takePlannedRemoval(Board board) {
+        if (plannedRemoval == Move.NO_NODE) {
+            return null;
+        }
+        Node planned = board.getNode(plannedRemoval);
+        plannedRemoval = Move.NO_NODE;
+        return planned;
+    }
+
     /**
      * Returns the best node to remove from the opponent once a mill is formed.
-     * In this basic version, we remove a random opponent stone that is not in a mill if possible;
+     * If the last move came from the endgame database, its removal is used. Otherwise
+     * we remove a random opponent stone that is not in a mill if possible;
      * otherwise, remove any of the opponent's stones.
      */
     public Node bestRemoval(Board board, Player player) {
+        Node planned = takePlannedRemoval(board);
+        if (planned != null) {
+            return planned;
+        }
         Player opponent = game.getOpponent(player);
         List<Node> removableNodes = new ArrayList<>();
 
@@ -0,0 +1,29 @@
+package minimax;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one completed iteration of an iteratively deepened minimax search, covering the
+ * time taken to search all root moves to its depth.
+ */
+@Name("mills.MinimaxIteration")
+@Label("Minimax Iteration")
+@Category({"Mills", "Search"})
+@Description("A minimax search iteration completed")
+class MinimaxIterationEvent extends Event {
+    @Label("Player")
+    String player;
+    @Label("Depth")
+    @Description("The depth of the iteration")
+    int depth;
+    @Label("Nodes")
+    @Description("The nodes searched for the move so far")
+    long nodes;
+    @Label("Score")
+    @Description("The value of the best move of the iteration")
+    int score;
+}
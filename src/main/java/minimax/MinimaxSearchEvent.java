@@ -0,0 +1,28 @@
+package minimax;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a completed minimax search, covering the time taken to choose one move.
+ */
+@Name("mills.MinimaxSearch")
+@Label("Minimax Search")
+@Category({"Mills", "Search"})
+@Description("A minimax search for one move completed")
+class MinimaxSearchEvent extends Event {
+    @Label("Player")
+    String player;
+    @Label("Depth")
+    @Description("The deepest ply reached")
+    int depth;
+    @Label("Nodes")
+    long nodes;
+    @Label("Score")
+    int score;
+    @Label("Move")
+    String move;
+}
@@ -3,99 +3,175 @@ package neural;
 import game.mills.Board;
 import game.mills.Node;
 import game.mills.Player;
+import game.mills.Position;
+import game.mills.Symmetry;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Arrays;
 
 /**
  * Handles the conversion of the Nine Men's Morris board state into a format
  * suitable for CNN processing. The board is represented as multiple channels
  * of 7x7 matrices to capture different aspects of the game state.
+ * <p>
+ * Channel 0: Player's pieces (1 for player's pieces, 0 otherwise)
+ * Channel 1: Opponent's pieces (-1 for opponent's pieces, 0 otherwise)
+ * Channel 2: Valid positions (1 for valid board positions, 0 for invalid spaces)
+ * Channel 3: Mill positions (1 for positions part of a mill, 0 otherwise)
+ * <p>
+ * The encoder is table-driven: every node has a precomputed cell index for each of the 16 board symmetries,
+ * and mills are found with bitmasks. Positions are written straight into a slot of a flat, preallocated
+ * batch buffer in channel-major order ({@code [channel][row][col]}), optionally once per symmetry for
+ * data augmentation.
  */
 public class BoardStateConverter {
-    private static final int BOARD_SIZE = 7;
+    private static final int BOARD_SIZE = Symmetry.GRID_SIZE;
     private static final int NUM_CHANNELS = 4; // Multiple channels for different features
+    private static final int CHANNEL_SIZE = BOARD_SIZE * BOARD_SIZE;
+    /**
+     * Number of floats one encoded position occupies in a flat buffer.
+     */
+    public static final int TENSOR_SIZE = NUM_CHANNELS * CHANNEL_SIZE;
+
+    // CELL[symmetry][node]: index of the node's cell within a channel after applying the symmetry.
+    private static final int[][] CELL = new int[Symmetry.COUNT][Position.POINTS];
+
+    static {
+        for (int sym = 0; sym < Symmetry.COUNT; sym++) {
+            for (int node = 0; node < Position.POINTS; node++) {
+                int image = Symmetry.map(sym, node);
+                CELL[sym][node] = Symmetry.row(image) * BOARD_SIZE + Symmetry.column(image);
+            }
+        }
+    }
 
     /**
      * Converts the current board state into a tensor representation suitable for
      * CNN input.
-     * 
-     * Channel 0: Player's pieces (1 for player's pieces, 0 otherwise)
-     * Channel 1: Opponent's pieces (-1 for opponent's pieces, 0 otherwise)
-     * Channel 2: Valid positions (1 for valid board positions, 0 for invalid
-     * spaces)
-     * Channel 3: Mill positions (1 for positions part of a mill, 0 otherwise)
      *
      * @param board  The current game board
      * @param player The player from whose perspective we're converting
      * @return A 3D float array representing the board state [channels][rows][cols]
      */
     public static float[][][] convertToTensor(Board board, Player player) {
-        float[][][] tensor = new float[NUM_CHANNELS][BOARD_SIZE][BOARD_SIZE];
-
-        // Initialize valid positions channel (constant for all games)
-        initializeValidPositions(tensor[2]);
-
-        // Fill player and opponent pieces
+        int own = 0;
+        int other = 0;
         for (Node node : board.getNodes().values()) {
-            int[] coords = nodeIdToCoordinates(node.getId());
-            if (coords != null) {
-                if (node.getOccupant() == player) {
-                    tensor[0][coords[0]][coords[1]] = 1.0f;
-                } else if (node.getOccupant() != null) {
-                    tensor[1][coords[0]][coords[1]] = -1.0f;
-                }
-
-                // Mark mill positions
-                if (board.isPartOfMill(node)) {
-                    tensor[3][coords[0]][coords[1]] = 1.0f;
-                }
+            if (node.getOccupant() == player) {
+                own |= 1 << node.getId();
+            } else if (node.isOccupied()) {
+                other |= 1 << node.getId();
             }
         }
+        return convertToTensor(own, other);
+    }
+
+    /**
+     * Converts stone masks into the tensor format of {@link #convertToTensor(Board, Player)}.
+     *
+     * @param own   The stones of the player from whose perspective we're converting.
+     * @param other The stones of the opponent.
+     * @return A 3D float array representing the board state [channels][rows][cols]
+     */
+    public static float[][][] convertToTensor(int own, int other) {
+        float[] flat = new float[TENSOR_SIZE];
+        encode(own, other, 0, flat, 0);
 
+        float[][][] tensor = new float[NUM_CHANNELS][BOARD_SIZE][BOARD_SIZE];
+        for (int c = 0; c < NUM_CHANNELS; c++) {
+            for (int r = 0; r < BOARD_SIZE; r++) {
+                System.arraycopy(flat, c * CHANNEL_SIZE + r * BOARD_SIZE, tensor[c][r], 0, BOARD_SIZE);
+            }
+        }
         return tensor;
     }
 
     /**
-     * Converts a node ID to 2D coordinates on the 7x7 grid.
-     * This mapping is specific to the standard Nine Men's Morris board layout.
+     * Encodes a position from the perspective of a side into a slot of a flat batch buffer.
+     *
+     * @param position The position.
+     * @param side     The side whose stones go into channel 0.
+     * @param out      The batch buffer.
+     * @param offset   The index of the slot's first float; the slot is {@link #TENSOR_SIZE} floats long.
+     */
+    public static void encode(Position position, int side, float[] out, int offset) {
+        encode(position.stones(side), position.stones(1 - side), 0, out, offset);
+    }
+
+    /**
+     * Encodes a position transformed by one of the 16 board symmetries into a slot of a flat batch buffer.
+     *
+     * @param position The position.
+     * @param side     The side whose stones go into channel 0.
+     * @param symmetry The symmetry index (0 is the identity).
+     * @param out      The batch buffer.
+     * @param offset   The index of the slot's first float.
      */
-    private static int[] nodeIdToCoordinates(int nodeId) {
-        // Mapping of node IDs to 7x7 grid coordinates
-        switch (nodeId) {
-            case 0:
-                return new int[] { 0, 0 };
-            case 1:
-                return new int[] { 0, 3 };
-            case 2:
-                return new int[] { 0, 6 };
-            case 3:
-                return new int[] { 1, 1 };
-            case 4:
-                return new int[] { 1, 3 };
-            case 5:
-                return new int[] { 1, 5 };
-            // ... add remaining mappings
-            default:
-                return null;
+    public static void encode(Position position, int side, int symmetry, float[] out, int offset) {
+        encode(position.stones(side), position.stones(1 - side), symmetry, out, offset);
+    }
+
+    /**
+     * Encodes a position once per board symmetry into {@link Symmetry#COUNT} consecutive slots,
+     * for symmetry-augmented training data.
+     *
+     * @param position The position.
+     * @param side     The side whose stones go into channel 0.
+     * @param out      The batch buffer, with room for 16 slots from {@code offset} on.
+     * @param offset   The index of the first slot's first float.
+     */
+    public static void encodeSymmetries(Position position, int side, float[] out, int offset) {
+        for (int sym = 0; sym < Symmetry.COUNT; sym++) {
+            encode(position.stones(side), position.stones(1 - side), sym, out, offset + sym * TENSOR_SIZE);
         }
     }
 
     /**
-     * Initializes the valid positions channel with 1s for valid board positions
-     * and 0s for invalid spaces.
+     * Encodes a position into one row of a preallocated {@code [batch, TENSOR_SIZE]} INDArray.
+     * Only the row is cleared and the non-zero entries are written, no temporary arrays are created.
+     *
+     * @param position The position.
+     * @param side     The side whose stones go into channel 0.
+     * @param batch    The batch array.
+     * @param row      The row to write.
      */
-    private static void initializeValidPositions(float[][] validPositions) {
-        // Mark valid positions with 1.0f, leaving others as 0.0f
-        for (int[] coords : VALID_POSITIONS) {
-            validPositions[coords[0]][coords[1]] = 1.0f;
+    public static void encode(Position position, int side, INDArray batch, int row) {
+        batch.getRow(row).assign(0);
+        int own = position.stones(side);
+        int other = position.stones(1 - side);
+        int mills = Position.millStones(own) | Position.millStones(other);
+        int[] cells = CELL[0];
+        for (int node = 0; node < Position.POINTS; node++) {
+            int bit = 1 << node;
+            int cell = cells[node];
+            batch.putScalar(row, 2 * CHANNEL_SIZE + cell, 1.0);
+            if ((own & bit) != 0) {
+                batch.putScalar(row, cell, 1.0);
+            } else if ((other & bit) != 0) {
+                batch.putScalar(row, CHANNEL_SIZE + cell, -1.0);
+            }
+            if ((mills & bit) != 0) {
+                batch.putScalar(row, 3 * CHANNEL_SIZE + cell, 1.0);
+            }
         }
     }
 
-    private static final int[][] VALID_POSITIONS = {
-            { 0, 0 }, { 0, 3 }, { 0, 6 },
-            { 1, 1 }, { 1, 3 }, { 1, 5 },
-            { 2, 2 }, { 2, 3 }, { 2, 4 },
-            { 3, 0 }, { 3, 1 }, { 3, 2 }, { 3, 4 }, { 3, 5 }, { 3, 6 },
-            { 4, 2 }, { 4, 3 }, { 4, 4 },
-            { 5, 1 }, { 5, 3 }, { 5, 5 },
-            { 6, 0 }, { 6, 3 }, { 6, 6 }
-    };
+    private static void encode(int own, int other, int symmetry, float[] out, int offset) {
+        Arrays.fill(out, offset, offset + TENSOR_SIZE, 0f);
+        int mills = Position.millStones(own) | Position.millStones(other);
+        int[] cells = CELL[symmetry];
+        for (int node = 0; node < Position.POINTS; node++) {
+            int bit = 1 << node;
+            int cell = offset + cells[node];
+            out[cell + 2 * CHANNEL_SIZE] = 1.0f;
+            if ((own & bit) != 0) {
+                out[cell] = 1.0f;
+            } else if ((other & bit) != 0) {
+                out[cell + CHANNEL_SIZE] = -1.0f;
+            }
+            if ((mills & bit) != 0) {
+                out[cell + 3 * CHANNEL_SIZE] = 1.0f;
+            }
+        }
+    }
 }
@@ -1,11 +1,30 @@
 package neural;
 
 import game.mills.*;
+import lombok.extern.slf4j.Slf4j;
+import metrics.Counter;
+import metrics.MetricsRegistry;
+
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
-public class GameDataCollector {
+/**
+ * Collects training positions of games. A collector either records states handed to
+ * {@link #recordGameState(Board, Player, boolean, Player)} or subscribes to the {@link GameEventPublisher} of one
+ * game, in which case the positions are converted on the subscriber's executor instead of in the game loop.
+ */
+@Slf4j
+public class GameDataCollector implements Flow.Subscriber<GameEvent> {
+    private static final Counter RECORDS = MetricsRegistry.getDefault()
+            .counter("mills_records_written_total", "Records written by the data writers", "writer", "training_data");
+    private static final Counter BYTES = MetricsRegistry.getDefault()
+            .counter("mills_bytes_written_total", "Bytes written by the data writers", "writer", "training_data");
     private List<GameRecord> gameRecords;
+    private final CompletableFuture<GameDataCollector> completed = new CompletableFuture<>();
+    private long nextSequence;
+    private boolean eventsDropped;
 
     public GameDataCollector() {
         this.gameRecords = new ArrayList<>();
@@ -22,9 +41,15 @@ public class GameDataCollector {
         // Calculate game outcome from current player's perspective
         float outcome = calculateOutcome(currentPlayer, winner, isGameOver);
 
-        // Create and store the position record
-        BoardPosition position = new BoardPosition(boardState, outcome);
+        addPosition(new BoardPosition(boardState, outcome));
 
+        // If game is over, mark the record as complete
+        if (isGameOver) {
+            completeGame(winner);
+        }
+    }
+
+    private void addPosition(BoardPosition position) {
         // If this is the first position of a new game, create a new game record
         if (gameRecords.isEmpty() || gameRecords.get(gameRecords.size() - 1).isComplete()) {
             gameRecords.add(new GameRecord());
@@ -32,12 +57,68 @@ public class GameDataCollector {
 
         // Add position to current game record
         gameRecords.get(gameRecords.size() - 1).addPosition(position);
+    }
 
-        // If game is over, mark the record as complete
-        if (isGameOver) {
-            gameRecords.get(gameRecords.size() - 1).setComplete(true);
-            finalizeGameRecord(winner);
+    private void completeGame(Player winner) {
+        if (gameRecords.isEmpty() || gameRecords.get(gameRecords.size() - 1).isComplete()) {
+            gameRecords.add(new GameRecord());
         }
+        gameRecords.get(gameRecords.size() - 1).setComplete(true);
+        finalizeGameRecord(winner);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    /**
+     * Records the position after every move and removal of the game, from the perspective of the player to
+     * move, and completes the game record when the game ends. A game missing events is not completed.
+     */
+    @Override
+    public void onNext(GameEvent event) {
+        eventsDropped |= event.sequence() != nextSequence;
+        nextSequence = event.sequence() + 1;
+        Position position = event.position();
+        int side = position.sideToMove();
+        switch (event.type()) {
+            case MOVE:
+            case MILL:
+            case REMOVAL:
+                addPosition(new BoardPosition(
+                        BoardStateConverter.convertToTensor(position.stones(side), position.stones(1 - side)), 0.0f));
+                break;
+            case GAME_OVER:
+                if (eventsDropped) {
+                    log.warn("Game {} lost events, its positions are not collected", event.gameId());
+                } else {
+                    completeGame(event.player());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        completed.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        completed.complete(this);
+    }
+
+    /**
+     * Gets a future that completes with this collector once the game it subscribed to has ended or was abandoned
+     * and all its events are recorded.
+     *
+     * @return The future.
+     */
+    public CompletableFuture<GameDataCollector> whenCompleted() {
+        return completed;
     }
 
     private float calculateOutcome(Player currentPlayer, Player winner, boolean isGameOver) {
@@ -57,15 +138,41 @@ public class GameDataCollector {
         }
     }
 
-    public void saveGameData(String filename) throws IOException {
+    public synchronized void saveGameData(String filename) throws IOException {
+        DatasetFlushEvent event = new DatasetFlushEvent();
+        event.begin();
         try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
             oos.writeObject(gameRecords);
         }
+        int records = gameRecords.stream().mapToInt(GameRecord::getPositionCount).sum();
+        long bytes = new File(filename).length();
+        RECORDS.add(records);
+        BYTES.add(bytes);
+        if (event.shouldCommit()) {
+            event.writer = "training_data";
+            event.records = records;
+            event.bytes = bytes;
+            event.commit();
+        }
     }
 
     public int getGamesCollected() {
         return (int) gameRecords.stream().filter(GameRecord::isComplete).count();
     }
+
+    /**
+     * Adds the complete games of another collector. A collector follows one game at a time, so games that
+     * run in parallel are recorded by collectors of their own and merged here.
+     *
+     * @param other The collector to take the games from.
+     */
+    public synchronized void addGames(GameDataCollector other) {
+        other.gameRecords.stream().filter(GameRecord::isComplete).forEach(gameRecords::add);
+    }
+
+    public int getPositionsCollected() {
+        return gameRecords.stream().filter(GameRecord::isComplete).mapToInt(GameRecord::getPositionCount).sum();
+    }
 }
 
 /**
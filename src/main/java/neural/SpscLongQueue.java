@@ -0,0 +1,94 @@
+package neural;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A bounded single-producer, single-consumer queue of longs. Each index is written by one thread only and
+ * published with release semantics, so neither side takes a lock; each side caches the other's index and only
+ * reads it again when the cached value says the queue is full or empty.
+ */
+final class SpscLongQueue {
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(SpscLongQueue.class, "head", long.class);
+            TAIL = lookup.findVarHandle(SpscLongQueue.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long[] buffer;
+    private final int mask;
+    // Next index to read, written by the consumer.
+    @SuppressWarnings("unused") // accessed through HEAD
+    private volatile long head;
+    // Next index to write, written by the producer.
+    @SuppressWarnings("unused") // accessed through TAIL
+    private volatile long tail;
+    // The producer's view of head and the consumer's view of tail.
+    private long cachedHead;
+    private long cachedTail;
+
+    /**
+     * Creates a queue.
+     *
+     * @param capacity The number of values the queue holds, a power of two.
+     */
+    SpscLongQueue(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.buffer = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Adds values as a whole or not at all. Producer only.
+     *
+     * @param values The values.
+     * @param count  The number of values to add from the start of the array.
+     * @return False if there is not enough room.
+     */
+    boolean offer(long[] values, int count) {
+        long written = (long) TAIL.getOpaque(this);
+        if (written + count - cachedHead > buffer.length) {
+            cachedHead = (long) HEAD.getAcquire(this);
+            if (written + count - cachedHead > buffer.length) {
+                return false;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            buffer[(int) (written + i) & mask] = values[i];
+        }
+        TAIL.setRelease(this, written + count);
+        return true;
+    }
+
+    /**
+     * Removes as many values as are available and fit. Consumer only.
+     *
+     * @param into Receives the values.
+     * @return The number of values removed.
+     */
+    int drain(long[] into) {
+        long read = (long) HEAD.getOpaque(this);
+        if (read == cachedTail) {
+            cachedTail = (long) TAIL.getAcquire(this);
+        }
+        int count = (int) Math.min(cachedTail - read, into.length);
+        for (int i = 0; i < count; i++) {
+            into[i] = buffer[(int) (read + i) & mask];
+        }
+        HEAD.setRelease(this, read + count);
+        return count;
+    }
+}
@@ -0,0 +1,300 @@
+package neural;
+
+import game.mills.DatasetFlushEvent;
+import game.mills.Game;
+import game.mills.GameEvent;
+import game.mills.GameEventPublisher;
+import game.mills.Position;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import metrics.Counter;
+import metrics.MetricsRegistry;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Collects the training positions of many games without holding them in memory or converting them in the game
+ * loop.
+ * <p>
+ * The events of all games are consumed on one collecting thread, which keeps the position keys of the running
+ * games and hands those of a finished game to a bounded {@link SpscLongQueue}. A writer thread converts the
+ * positions to tensors and writes the games to rolling files {@code <name>-00000.ser}, {@code <name>-00001.ser},
+ * ..., each a serialized list of game records as written by {@link GameDataCollector#saveGameData(String)}.
+ * A file is written once it has the configured number of games or its first game has waited for the flush
+ * interval. It is written under a temporary name, forced to the storage device and then renamed, so a crash
+ * leaves only complete files behind.
+ * <p>
+ * The games never wait for the disk: if the writer falls so far behind that a finished game does not fit into
+ * the queue, the game is dropped and counted in {@code mills_training_games_dropped_total}.
+ */
+@Slf4j
+public class StreamingDataCollector implements Closeable {
+    // Follows the positions of every game in the queue; position keys are never negative.
+    private static final long END_OF_GAME = -1;
+    // 512 KB, several hundred games of usual length.
+    private static final int QUEUE_CAPACITY = 1 << 16;
+    private static final long DEFAULT_FLUSH_MILLIS = 5000;
+    private static final Counter RECORDS = MetricsRegistry.getDefault()
+            .counter("mills_records_written_total", "Records written by the data writers", "writer", "training_data");
+    private static final Counter BYTES = MetricsRegistry.getDefault()
+            .counter("mills_bytes_written_total", "Bytes written by the data writers", "writer", "training_data");
+    private static final Counter DROPPED = MetricsRegistry.getDefault().counter("mills_training_games_dropped_total",
+            "Finished games left out of the training data because the writer fell behind");
+
+    private final Path directory;
+    private final String name;
+    private final int gamesPerFile;
+    private final long flushNanos;
+    private final SpscLongQueue queue = new SpscLongQueue(QUEUE_CAPACITY);
+    // The only producer of the queue.
+    private final ExecutorService collector = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "training-data-collect");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Thread writer;
+    private volatile boolean closing;
+    // Written by the writer thread, read after it has ended.
+    private IOException writeError;
+    /**
+     * The number of files, games and positions written; complete once the collector is closed.
+     */
+    @Getter
+    private int filesWritten;
+    @Getter
+    private int gamesWritten;
+    @Getter
+    private long positionsWritten;
+
+    /**
+     * Creates a collector with a flush interval of five seconds.
+     *
+     * @param output       The file name the rolling files are named after; a {@code .ser} extension is replaced.
+     * @param gamesPerFile The number of games per file.
+     */
+    public StreamingDataCollector(Path output, int gamesPerFile) {
+        this(output, gamesPerFile, DEFAULT_FLUSH_MILLIS);
+    }
+
+    /**
+     * Creates a collector.
+     *
+     * @param output       The file name the rolling files are named after; a {@code .ser} extension is replaced.
+     * @param gamesPerFile The number of games per file.
+     * @param flushMillis  The time after which finished games are written even if the file is not full.
+     */
+    public StreamingDataCollector(Path output, int gamesPerFile, long flushMillis) {
+        if (gamesPerFile < 1 || flushMillis < 1) {
+            throw new IllegalArgumentException("games per file and flush interval must be positive");
+        }
+        Path absolute = output.toAbsolutePath();
+        String fileName = absolute.getFileName().toString();
+        this.directory = absolute.getParent();
+        this.name = fileName.endsWith(".ser") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        this.gamesPerFile = gamesPerFile;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.writer = new Thread(this::writeLoop, "training-data-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Subscribes to the events of a game that has not started yet.
+     *
+     * @param game The game.
+     * @return A future that completes once all events of the game are consumed: with true if its positions were
+     * queued for writing, false if it was abandoned, lost events or was dropped.
+     */
+    public CompletableFuture<Boolean> subscribe(Game game) {
+        GameSubscriber subscriber = new GameSubscriber();
+        game.getEvents().subscribe(subscriber, collector, GameEventPublisher.DEFAULT_BUFFER_SIZE);
+        return subscriber.done;
+    }
+
+    /**
+     * Follows one game on the collecting thread.
+     */
+    private final class GameSubscriber implements Flow.Subscriber<GameEvent> {
+        private final CompletableFuture<Boolean> done = new CompletableFuture<>();
+        private long[] keys = new long[128];
+        private int count;
+        private long nextSequence;
+        private boolean eventsDropped;
+        private boolean queued;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        /**
+         * Keeps the position after every move and removal, like {@link GameDataCollector#onNext(GameEvent)}, and
+         * queues them when the game ends.
+         */
+        @Override
+        public void onNext(GameEvent event) {
+            eventsDropped |= event.sequence() != nextSequence;
+            nextSequence = event.sequence() + 1;
+            switch (event.type()) {
+                case MOVE:
+                case MILL:
+                case REMOVAL:
+                    add(event.position().key());
+                    break;
+                case GAME_OVER:
+                    if (eventsDropped) {
+                        log.warn("Game {} lost events, its positions are not collected", event.gameId());
+                    } else {
+                        queued = enqueue(event.gameId());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void add(long key) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+            }
+            keys[count++] = key;
+        }
+
+        private boolean enqueue(long gameId) {
+            add(END_OF_GAME);
+            if (!queue.offer(keys, count)) {
+                DROPPED.increment();
+                log.warn("Training data writer fell behind, game {} is not collected", gameId);
+                return false;
+            }
+            LockSupport.unpark(writer);
+            return true;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(queued);
+        }
+    }
+
+    private void writeLoop() {
+        long[] batch = new long[4096];
+        List<GameRecord> games = new ArrayList<>();
+        GameRecord game = new GameRecord();
+        long firstGameNanos = 0;
+        while (true) {
+            // Read before draining, so everything queued before close is drained before the loop ends.
+            boolean finishing = closing;
+            int count = queue.drain(batch);
+            for (int i = 0; i < count; i++) {
+                if (batch[i] == END_OF_GAME) {
+                    game.setComplete(true);
+                    game.finalizePositions();
+                    if (games.isEmpty()) {
+                        firstGameNanos = System.nanoTime();
+                    }
+                    games.add(game);
+                    game = new GameRecord();
+                } else {
+                    Position position = Position.fromKey(batch[i]);
+                    int side = position.sideToMove();
+                    game.addPosition(new BoardPosition(
+                            BoardStateConverter.convertToTensor(position.stones(side), position.stones(1 - side)), 0.0f));
+                }
+            }
+            if (!games.isEmpty() && (games.size() >= gamesPerFile || System.nanoTime() - firstGameNanos >= flushNanos
+                    || finishing && count == 0)) {
+                writeFile(games);
+                games = new ArrayList<>();
+            }
+            if (count == 0) {
+                if (finishing) {
+                    return;
+                }
+                LockSupport.parkNanos(flushNanos);
+            }
+        }
+    }
+
+    private void writeFile(List<GameRecord> games) {
+        Path file = directory.resolve(String.format("%s-%05d.ser", name, filesWritten));
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        int records = games.stream().mapToInt(GameRecord::getPositionCount).sum();
+        DatasetFlushEvent event = new DatasetFlushEvent();
+        event.begin();
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 ObjectOutputStream out = new ObjectOutputStream(
+                         new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+                out.writeObject(games);
+                out.flush();
+                channel.force(false);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            long bytes = Files.size(file);
+            filesWritten++;
+            gamesWritten += games.size();
+            positionsWritten += records;
+            RECORDS.add(records);
+            BYTES.add(bytes);
+            if (event.shouldCommit()) {
+                event.writer = "training_data";
+                event.records = records;
+                event.bytes = bytes;
+                event.commit();
+            }
+        } catch (IOException e) {
+            log.error("Could not write the training data file {}", file, e);
+            if (writeError == null) {
+                writeError = e;
+            }
+        }
+    }
+
+    /**
+     * Writes the remaining games and stops the threads. Must be called after all subscribed games have ended or
+     * were abandoned.
+     *
+     * @throws IOException if a file could not be written; the other files are complete.
+     */
+    @Override
+    public void close() throws IOException {
+        collector.close();
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the training data");
+        }
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+}
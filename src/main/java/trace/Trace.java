@@ -0,0 +1,172 @@
+package trace;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Debug tracing for hot paths, replacing console output.
+ * <p>
+ * {@link TraceEvent}s are recorded into a ring buffer of the recording thread that keeps the last
+ * {@value TraceBuffer#CAPACITY} events, so recording takes no lock and does no I/O. Categories are enabled with
+ * {@code -Dmills.trace=validation,game} or {@link #enable(String)}; while a category is disabled, recording
+ * one of its events is a single field read. The buffers are written out on demand with {@link #dump()}, and
+ * with {@link #dumpOnError(String)} when something goes wrong.
+ * <p>
+ * The buffers of finished threads are kept for a later dump, up to {@value #MAX_FINISHED_BUFFERS} of them.
+ */
+@Slf4j
+public final class Trace {
+    private static final int MAX_FINISHED_BUFFERS = 64;
+    private static final ThreadLocal<TraceBuffer> BUFFER = ThreadLocal.withInitial(Trace::newBuffer);
+    private static final Deque<TraceBuffer> BUFFERS = new ConcurrentLinkedDeque<>();
+    private static volatile int enabled;
+
+    static {
+        enable(System.getProperty("mills.trace", ""));
+    }
+
+    /**
+     * A recorded event.
+     *
+     * @param nanos  The {@link System#nanoTime()} of the event.
+     * @param thread The name of the recording thread.
+     * @param event  The event.
+     * @param first  The first value of the event.
+     * @param second The second value of the event.
+     */
+    public record Entry(long nanos, String thread, TraceEvent event, long first, long second) {
+        @Override
+        public String toString() {
+            return String.format("%d [%s] %s: %s", nanos, thread, event.getCategory().label(),
+                    event.format(first, second));
+        }
+    }
+
+    private Trace() {
+    }
+
+    public static boolean isEnabled(TraceCategory category) {
+        return (enabled & category.bit) != 0;
+    }
+
+    /**
+     * Enables categories in addition to those already enabled.
+     *
+     * @param categories Comma-separated category names, e.g. {@code "validation,game"}, or {@code "all"}.
+     * @throws IllegalArgumentException if a name is unknown.
+     */
+    public static synchronized void enable(String categories) {
+        int bits = 0;
+        for (String name : categories.split(",")) {
+            name = name.trim();
+            if (name.equalsIgnoreCase("all")) {
+                bits = -1;
+            } else if (!name.isEmpty()) {
+                bits |= category(name).bit;
+            }
+        }
+        enabled |= bits;
+    }
+
+    private static TraceCategory category(String name) {
+        for (TraceCategory category : TraceCategory.values()) {
+            if (category.label().equalsIgnoreCase(name)) {
+                return category;
+            }
+        }
+        throw new IllegalArgumentException("Unknown trace category: " + name);
+    }
+
+    public static synchronized void enable(TraceCategory category) {
+        enabled |= category.bit;
+    }
+
+    public static synchronized void disable(TraceCategory category) {
+        enabled &= ~category.bit;
+    }
+
+    public static boolean isAnyEnabled() {
+        return enabled != 0;
+    }
+
+    /**
+     * Records an event with one value if its category is enabled.
+     *
+     * @param event The event.
+     * @param first The value.
+     */
+    public static void record(TraceEvent event, long first) {
+        record(event, first, 0);
+    }
+
+    /**
+     * Records an event with two values if its category is enabled.
+     *
+     * @param event  The event.
+     * @param first  The first value.
+     * @param second The second value.
+     */
+    public static void record(TraceEvent event, long first, long second) {
+        if (isEnabled(event.getCategory())) {
+            BUFFER.get().add(event, first, second);
+        }
+    }
+
+    private static TraceBuffer newBuffer() {
+        TraceBuffer buffer = new TraceBuffer(Thread.currentThread());
+        BUFFERS.add(buffer);
+        // Drop the oldest buffers of finished threads beyond the limit; virtual threads come and go quickly.
+        int finished = 0;
+        for (Iterator<TraceBuffer> it = BUFFERS.descendingIterator(); it.hasNext(); ) {
+            TraceBuffer candidate = it.next();
+            if (!candidate.isAlive() && ++finished > MAX_FINISHED_BUFFERS) {
+                it.remove();
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Collects the events of all buffers.
+     *
+     * @return The events, oldest first.
+     */
+    public static List<Entry> snapshot() {
+        List<Entry> entries = new ArrayList<>();
+        for (TraceBuffer buffer : BUFFERS) {
+            buffer.snapshot(entries);
+        }
+        entries.sort(Comparator.comparingLong(Entry::nanos));
+        return entries;
+    }
+
+    /**
+     * Formats the events of all buffers, one per line.
+     *
+     * @return The events, oldest first.
+     */
+    public static String dump() {
+        StringBuilder text = new StringBuilder();
+        for (Entry entry : snapshot()) {
+            text.append(entry).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Logs the recorded events after an error, if tracing is enabled.
+     *
+     * @param reason What went wrong.
+     */
+    public static void dumpOnError(String reason) {
+        if (isAnyEnabled()) {
+            log.error("Trace before {}:\n{}", reason, dump());
+        }
+    }
+}
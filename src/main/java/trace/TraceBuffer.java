@@ -0,0 +1,77 @@
+package trace;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+/**
+ * The ring buffer of one thread. Only the owning thread writes, so recording needs no lock; the count is
+ * published with release semantics for the thread that dumps. Entries the writer may have overwritten while
+ * they were read are dropped from the snapshot.
+ */
+final class TraceBuffer {
+    static final int CAPACITY = 1024;
+    private static final int MASK = CAPACITY - 1;
+    private static final VarHandle COUNT;
+
+    static {
+        try {
+            COUNT = MethodHandles.lookup().findVarHandle(TraceBuffer.class, "count", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final WeakReference<Thread> thread;
+    private final String threadName;
+    private final long[] times = new long[CAPACITY];
+    private final TraceEvent[] events = new TraceEvent[CAPACITY];
+    private final long[] firsts = new long[CAPACITY];
+    private final long[] seconds = new long[CAPACITY];
+    @SuppressWarnings("unused") // accessed through COUNT
+    private volatile long count;
+
+    TraceBuffer(Thread thread) {
+        this.thread = new WeakReference<>(thread);
+        this.threadName = thread.getName().isEmpty() ? "thread-" + thread.threadId() : thread.getName();
+    }
+
+    void add(TraceEvent event, long first, long second) {
+        long written = (long) COUNT.getOpaque(this);
+        int index = (int) (written & MASK);
+        times[index] = System.nanoTime();
+        events[index] = event;
+        firsts[index] = first;
+        seconds[index] = second;
+        COUNT.setRelease(this, written + 1);
+    }
+
+    boolean isAlive() {
+        Thread owner = thread.get();
+        return owner != null && owner.isAlive();
+    }
+
+    /**
+     * Copies the entries that are still in the buffer.
+     *
+     * @param into Receives the entries.
+     */
+    void snapshot(List<Trace.Entry> into) {
+        long end = (long) COUNT.getAcquire(this);
+        long start = Math.max(0, end - CAPACITY);
+        int first = into.size();
+        for (long i = start; i < end; i++) {
+            int index = (int) (i & MASK);
+            into.add(new Trace.Entry(times[index], threadName, events[index], firsts[index], seconds[index]));
+        }
+        // Entries overwritten while copying are unreliable, and so is the oldest one left: its slot may already
+        // be half written with the entry at the current count, which is only published once complete. The fence
+        // keeps the copying reads before the count is read again.
+        VarHandle.acquireFence();
+        long overwritten = (long) COUNT.getAcquire(this) - CAPACITY + 1 - start;
+        if (overwritten > 0) {
+            into.subList(first, first + (int) Math.min(overwritten, end - start)).clear();
+        }
+    }
+}
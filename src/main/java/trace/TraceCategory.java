@@ -0,0 +1,26 @@
+package trace;
+
+/**
+ * The categories of {@link TraceEvent}s, which are enabled separately.
+ */
+public enum TraceCategory {
+    /**
+     * Rejected placements and moves.
+     */
+    VALIDATION,
+    /**
+     * Changes of the game state and AI moves.
+     */
+    GAME;
+
+    final int bit = 1 << ordinal();
+
+    /**
+     * Gets the name used in {@code -Dmills.trace} and the dump.
+     *
+     * @return The name in lower case.
+     */
+    public String label() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,38 @@
+package trace;
+
+import game.mills.Move;
+
+/**
+ * The events {@link Trace} can record. An event carries up to two numbers, which are only turned into its
+ * message when the trace is dumped.
+ */
+public enum TraceEvent {
+    PLACEMENT_OCCUPIED(TraceCategory.VALIDATION,
+            (node, unused) -> "placement on node " + node + " rejected: node is occupied"),
+    NO_STONES_TO_PLACE(TraceCategory.VALIDATION,
+            (node, unused) -> "placement on node " + node + " rejected: no stones left to place"),
+    BOARD_ENCODED(TraceCategory.GAME,
+            (key, unused) -> "board encoded for the network, position key " + Long.toHexString(key)),
+    AI_MOVE(TraceCategory.GAME,
+            (move, micros) -> "AI chose move " + Move.toString((int) move) + " after " + micros + " us");
+
+    private interface Message {
+        String format(long first, long second);
+    }
+
+    private final TraceCategory category;
+    private final Message message;
+
+    TraceEvent(TraceCategory category, Message message) {
+        this.category = category;
+        this.message = message;
+    }
+
+    public TraceCategory getCategory() {
+        return category;
+    }
+
+    String format(long first, long second) {
+        return message.format(first, second);
+    }
+}
@@ -0,0 +1,74 @@
+package endgame;
+
+import game.mills.Position;
+import game.mills.Symmetry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the index is a bijection between the symmetry classes of an endgame class and its indices:
+ * every position unranks to its canonical image, so two positions share an index only if they are symmetric.
+ */
+class EndgameIndexTest {
+
+    @Test
+    void unrankOfRankIsCanonicalThreeAgainstTwo() {
+        checkBijection(3, 2);
+    }
+
+    @Test
+    void unrankOfRankIsCanonicalThreeAgainstThree() {
+        checkBijection(3, 3);
+    }
+
+    @Test
+    void symmetricPositionsShareTheirIndex() {
+        int own = 0b111;
+        int other = 0b111 << 8;
+        long index = EndgameIndex.rank(own, other);
+        for (int sym = 0; sym < Symmetry.COUNT; sym++) {
+            assertEquals(index, EndgameIndex.rank(Symmetry.apply(sym, own), Symmetry.apply(sym, other)));
+        }
+    }
+
+    private static void checkBijection(int ownStones, int otherStones) {
+        long size = EndgameIndex.size(ownStones, otherStones);
+        int ownMasks = EndgameIndex.binomial(Position.POINTS, ownStones);
+        int otherMasks = EndgameIndex.binomial(Position.POINTS - ownStones, otherStones);
+        for (int ownRank = 0; ownRank < ownMasks; ownRank++) {
+            int own = EndgameIndex.unrankMask(Position.POINTS, ownStones, ownRank);
+            for (int otherRank = 0; otherRank < otherMasks; otherRank++) {
+                int other = EndgameIndex.expand(
+                        EndgameIndex.unrankMask(Position.POINTS - ownStones, otherStones, otherRank), own);
+                long index = EndgameIndex.rank(own, other);
+                assertTrue(index >= 0 && index < size, "index out of range: " + index);
+                assertEquals(canonical(own, other), EndgameIndex.unrank(ownStones, otherStones, index));
+            }
+        }
+    }
+
+    /**
+     * Gets the image of a position with the smallest own mask and, among those, the smallest rank of the
+     * opponent stones on the free points.
+     */
+    private static long canonical(int own, int other) {
+        int bestOwn = Integer.MAX_VALUE;
+        int bestOther = 0;
+        for (int sym = 0; sym < Symmetry.COUNT; sym++) {
+            int ownImage = Symmetry.apply(sym, own);
+            int otherImage = Symmetry.apply(sym, other);
+            if (ownImage < bestOwn || ownImage == bestOwn && otherRank(otherImage, ownImage)
+                    < otherRank(bestOther, bestOwn)) {
+                bestOwn = ownImage;
+                bestOther = otherImage;
+            }
+        }
+        return ((long) bestOther << 24) | bestOwn;
+    }
+
+    private static int otherRank(int other, int own) {
+        return EndgameIndex.rankMask(EndgameIndex.compress(other, own));
+    }
+}
@@ -0,0 +1,125 @@
+package game.mills;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the move generator against known perft counts and the packing of positions into keys.
+ */
+class PositionTest {
+
+    @Test
+    void perftFromTheInitialPosition() {
+        long[] expected = {24, 552, 12144, 255024};
+        for (int depth = 1; depth <= expected.length; depth++) {
+            assertEquals(expected[depth - 1], perft(Position.initial(), depth, new int[depth][Position.MAX_MOVES]),
+                    "perft " + depth);
+        }
+    }
+
+    @Test
+    void keyRoundTrips() {
+        Random random = new Random(1);
+        int[] moves = new int[Position.MAX_MOVES];
+        for (int game = 0; game < 50; game++) {
+            Position position = Position.initial();
+            for (int ply = 0; ply < 60 && !position.isLost(); ply++) {
+                assertSamePosition(position, Position.fromKey(position.key()));
+                int count = position.generateMoves(moves);
+                position = position.play(moves[random.nextInt(count)]);
+            }
+        }
+        Position secondToMove = new Position(0xABCDEF & ~0x123456, 0x123456, 0, 9, 1);
+        assertSamePosition(secondToMove, Position.fromKey(secondToMove.key()));
+    }
+
+    @Test
+    void closingAMillOffersEveryRemovableStoneAsAMove() {
+        int[] mills = Position.millMasks();
+        int mill = mills[0];
+        int target = Integer.highestOneBit(mill);
+        int otherMill = 0;
+        for (int candidate : mills) {
+            if ((candidate & mill) == 0) {
+                otherMill = candidate;
+                break;
+            }
+        }
+        // Two opponent stones outside any mill are removable, the three in a mill are not.
+        int free = ~(mill | otherMill) & ((1 << Position.POINTS) - 1);
+        int first = Integer.lowestOneBit(free);
+        int second = Integer.lowestOneBit(free & ~first);
+        Position position = new Position(mill & ~target, otherMill | first | second, 5, 4, 0);
+
+        int[] moves = new int[Position.MAX_MOVES];
+        int count = position.generateMoves(moves);
+        int place = Move.place(Integer.numberOfTrailingZeros(target));
+        int removals = 0;
+        for (int i = 0; i < count; i++) {
+            if (Move.to(moves[i]) == Move.to(place)) {
+                assertTrue(Move.hasRemoval(moves[i]), "closing the mill must remove a stone");
+                int removed = 1 << Move.removal(moves[i]);
+                assertTrue(removed == first || removed == second,
+                        "removed a stone in a mill: " + Move.toString(moves[i]));
+                removals |= removed;
+                assertEquals(Move.withRemoval(place, Move.removal(moves[i])), moves[i]);
+            } else {
+                assertFalse(Move.hasRemoval(moves[i]), "no other placement closes a mill: " + Move.toString(moves[i]));
+            }
+        }
+        assertEquals(first | second, removals);
+        assertEquals(Integer.bitCount(position.emptyMask()) + 1, count);
+    }
+
+    @Test
+    void closingAMillMayRemoveStonesInMillsIfAllAreInMills() {
+        int[] mills = Position.millMasks();
+        int mill = mills[0];
+        int target = Integer.highestOneBit(mill);
+        int otherMill = 0;
+        for (int candidate : mills) {
+            if ((candidate & mill) == 0) {
+                otherMill = candidate;
+                break;
+            }
+        }
+        Position position = new Position(mill & ~target, otherMill, 5, 6, 0);
+
+        int[] moves = new int[Position.MAX_MOVES];
+        int count = position.generateMoves(moves);
+        int removals = 0;
+        for (int i = 0; i < count; i++) {
+            if (Move.to(moves[i]) == Integer.numberOfTrailingZeros(target)) {
+                removals |= 1 << Move.removal(moves[i]);
+            }
+        }
+        assertEquals(otherMill, removals);
+        assertEquals(Integer.bitCount(position.emptyMask()) + 2, count);
+    }
+
+    private static long perft(Position position, int depth, int[][] moves) {
+        int[] buffer = moves[depth - 1];
+        int count = position.generateMoves(buffer);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            nodes += perft(position.play(buffer[i]), depth - 1, moves);
+        }
+        return nodes;
+    }
+
+    private static void assertSamePosition(Position expected, Position actual) {
+        for (int side = 0; side < 2; side++) {
+            assertEquals(expected.stones(side), actual.stones(side));
+            assertEquals(expected.inHand(side), actual.inHand(side));
+        }
+        assertEquals(expected.sideToMove(), actual.sideToMove());
+    }
+}
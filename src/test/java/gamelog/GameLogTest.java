@@ -0,0 +1,112 @@
+package gamelog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes games with {@link GameLogWriter} and reads them back with {@link GameLogReader}.
+ */
+class GameLogTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void gamesAreReadAsWritten() throws IOException {
+        List<LoggedGame> games = List.of(
+                game(1, "minimax:3", "mcts:2000", LoggedGame.FIRST_WINS, 60),
+                game(-7, "Spieler Ä", "baseline", LoggedGame.DRAW, 0),
+                game(Long.MAX_VALUE, "nn", "minimax:8", LoggedGame.UNFINISHED, 300));
+        Path file = write(games);
+
+        assertEquals(games, read(file));
+    }
+
+    @Test
+    void truncatedTrailingFrameIsSkipped() throws IOException {
+        LoggedGame complete = game(1, "baseline", "minimax:2", LoggedGame.SECOND_WINS, 40);
+        Path file = write(List.of(complete, game(2, "baseline", "minimax:2", LoggedGame.DRAW, 40)));
+        long size = Files.size(file);
+
+        // Both frames have the same size. Cut off within the body of the second frame, then within its header.
+        truncate(file, size - 5);
+        assertEquals(List.of(complete), read(file));
+        truncate(file, size / 2 + GameLogWriter.FRAME_HEADER_SIZE - 4);
+        assertEquals(List.of(complete), read(file));
+    }
+
+    @Test
+    void frameLargerThanTheBuffersIsReadAsWritten() throws IOException {
+        LoggedGame large = game(3, "mcts:100000", "minimax:9", LoggedGame.DRAW, 6000);
+        List<LoggedGame> games = List.of(game(1, "a", "b", LoggedGame.DRAW, 10), large,
+                game(2, "c", "d", LoggedGame.FIRST_WINS, 10));
+        Path file = write(games);
+
+        assertTrue(Files.size(file) > 64 * 1024, "the large frame must not fit into the 64 KB buffers");
+        assertEquals(games, read(file));
+    }
+
+    @Test
+    void corruptFrameLengthIsADamagedFrame() throws IOException {
+        for (int length : new int[]{-1, Integer.MAX_VALUE - 2, 300 * 1024 * 1024}) {
+            LoggedGame complete = game(1, "baseline", "minimax:2", LoggedGame.DRAW, 20);
+            Path file = write(List.of(complete));
+            ByteBuffer header = ByteBuffer.allocate(GameLogWriter.FRAME_HEADER_SIZE + 16)
+                    .putInt(GameLogWriter.MAGIC).putShort(GameLogWriter.VERSION).putInt(length).putLong(0).putLong(0)
+                    .flip();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+                channel.write(header);
+            }
+
+            try (GameLogReader reader = new GameLogReader(file)) {
+                assertEquals(complete, reader.next());
+                IOException error = assertThrows(IOException.class, reader::next);
+                assertTrue(error.getMessage().startsWith("Damaged game log frame"), error.getMessage());
+            }
+            Files.delete(file);
+        }
+    }
+
+    private Path write(List<LoggedGame> games) throws IOException {
+        Path file = directory.resolve("games.mglg");
+        try (GameLogWriter writer = new GameLogWriter(file)) {
+            for (LoggedGame game : games) {
+                writer.write(game);
+            }
+        }
+        return file;
+    }
+
+    private static List<LoggedGame> read(Path file) throws IOException {
+        try (Stream<LoggedGame> games = GameLogReader.stream(file)) {
+            return games.toList();
+        }
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private static LoggedGame game(long seed, String first, String second, int result, int moveCount) {
+        List<LoggedMove> moves = new ArrayList<>(moveCount);
+        for (int i = 0; i < moveCount; i++) {
+            moves.add(new LoggedMove((i * 7919) & 0xFFFF, i * 13, -i, i % 2 == 0 ? i : -i));
+        }
+        return new LoggedGame(1_700_000_000_000L + seed, seed, first, second, result, 0x123456789AL, moves);
+    }
+}
@@ -0,0 +1,105 @@
+package neural;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the queue keeps values in order across wrap-around and never accepts more than it holds.
+ */
+class SpscLongQueueTest {
+
+    @Test
+    void valuesStayInOrderAcrossWrapAround() {
+        SpscLongQueue queue = new SpscLongQueue(8);
+        long[] into = new long[5];
+        long next = 0;
+        long expected = 0;
+        // Offering 3 and draining up to 5 at a time wraps the indices around the buffer many times.
+        for (int round = 0; round < 100; round++) {
+            assertTrue(queue.offer(new long[]{next, next + 1, next + 2}, 3));
+            next += 3;
+            int count = queue.drain(into);
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected++, into[i]);
+            }
+        }
+        int count;
+        while ((count = queue.drain(into)) > 0) {
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected++, into[i]);
+            }
+        }
+        assertEquals(next, expected);
+    }
+
+    @Test
+    void fullQueueRejectsOfferAsAWhole() {
+        SpscLongQueue queue = new SpscLongQueue(8);
+        assertTrue(queue.offer(new long[]{1, 2, 3, 4, 5}, 5));
+        assertFalse(queue.offer(new long[]{6, 7, 8, 9}, 4));
+        assertTrue(queue.offer(new long[]{6, 7, 8}, 3));
+        assertFalse(queue.offer(new long[]{9}, 1));
+
+        long[] into = new long[2];
+        assertEquals(2, queue.drain(into));
+        assertArrayEquals(new long[]{1, 2}, into);
+        assertTrue(queue.offer(new long[]{9, 10}, 2));
+
+        // The consumer only sees the last offer once it has drained what it saw before.
+        long[] rest = new long[16];
+        int count = 0;
+        for (int drained; (drained = queue.drain(into)) > 0; ) {
+            System.arraycopy(into, 0, rest, count, drained);
+            count += drained;
+        }
+        assertEquals(8, count);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i + 3, rest[i]);
+        }
+    }
+
+    @Test
+    void capacityMustBeAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new SpscLongQueue(12));
+        assertThrows(IllegalArgumentException.class, () -> new SpscLongQueue(0));
+        assertEquals(16, new SpscLongQueue(16).capacity());
+    }
+
+    @Test
+    void consumerOnAnotherThreadSeesAllValuesInOrder() throws InterruptedException {
+        SpscLongQueue queue = new SpscLongQueue(64);
+        int total = 100_000;
+        Thread producer = new Thread(() -> {
+            long[] values = new long[7];
+            for (long next = 0; next < total; ) {
+                int count = (int) Math.min(values.length, total - next);
+                for (int i = 0; i < count; i++) {
+                    values[i] = next + i;
+                }
+                while (!queue.offer(values, count)) {
+                    Thread.yield();
+                }
+                next += count;
+            }
+        });
+        producer.start();
+        long[] into = new long[16];
+        long expected = 0;
+        while (expected < total) {
+            int count = queue.drain(into);
+            if (count == 0) {
+                Thread.yield();
+            }
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected++, into[i]);
+            }
+        }
+        producer.join();
+        assertEquals(0, queue.drain(into));
+    }
+}